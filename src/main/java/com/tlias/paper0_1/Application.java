@@ -3,9 +3,11 @@ package com.tlias.paper0_1;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @MapperScan("com.tlias.paper0_1.mapper")
+@EnableScheduling
 public class Application {
 
     public static void main(String[] args) {
@@ -0,0 +1,178 @@
+package com.tlias.paper0_1.component;
+
+import com.tlias.paper0_1.entity.Content;
+import com.tlias.paper0_1.entity.ContentCard;
+import com.tlias.paper0_1.entity.HotVideoResponse;
+import com.tlias.paper0_1.mapper.ContentMapper;
+import com.tlias.paper0_1.tools.PageCursor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分类热门列表
+ * 按video_type预先计算每个分类播放量前N名的视频并保存在内存中，后台定期刷新
+ * 分类标签页的请求直接从内存返回，每个分类可以独立使用页码或游标翻页
+ */
+@Component
+public class CategoryHotLists {
+
+    /**
+     * 排序规则：播放量降序，播放量相同时按视频ID降序，保证游标定位稳定
+     */
+    private static final Comparator<Content> ORDER = Comparator
+            .comparingLong(Content::getVideo_play_count).reversed()
+            .thenComparing(Content::getVideo_id, Comparator.reverseOrder());
+
+    @Autowired
+    private ContentMapper contentMapper;
+
+    /**
+     * 每个分类保存的视频数量
+     */
+    @Value("${paper.hot.category-capacity:500}")
+    private int capacity;
+
+    /**
+     * 分类 -> 按播放量排好序的视频，整体替换，读取时无锁
+     */
+    private volatile Map<String, Content[]> lists;
+
+    /**
+     * 定期重新计算所有分类的热门列表
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${paper.hot.category-refresh-interval-ms:300000}")
+    public void refresh() {
+        try {
+            Map<String, Content[]> rebuilt = new HashMap<>();
+            for (String videoType : contentMapper.getVideoTypes()) {
+                List<Content> rows = contentMapper.getHotVideoByVideoType(videoType, 0, capacity);
+                Content[] entries = rows.toArray(new Content[0]);
+                Arrays.sort(entries, ORDER);
+                rebuilt.put(videoType, entries);
+            }
+            lists = rebuilt;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 按页码获取分类热门视频
+     *
+     * @param videoType 视频分类
+     * @param offset    偏移量
+     * @param size      每页大小
+     * @param card      是否只返回卡片字段
+     * @return 热门视频响应；分类未加载或页面超出列表范围时返回null，由调用方回退到数据库
+     */
+    public HotVideoResponse getPage(String videoType, int offset, int size, boolean card) {
+        Content[] entries = entriesOf(videoType);
+        if (entries == null) {
+            return null;
+        }
+        boolean full = entries.length >= capacity;
+        if (offset + size > entries.length && full) {
+            return null;
+        }
+        return slice(entries, offset, size, card, full);
+    }
+
+    /**
+     * 按游标获取分类热门视频
+     * 游标记录上一页最后一条的(播放量, 视频ID)，刷新后排名变化也不会重复或跳过
+     * 游标模式只在内存列表范围内翻页，超出分类容量的部分不再返回
+     *
+     * @param videoType 视频分类
+     * @param cursor    上一页返回的nextCursor，为空时返回第一页
+     * @param size      每页大小
+     * @param card      是否只返回卡片字段
+     * @return 热门视频响应；分类未加载时返回null
+     */
+    public HotVideoResponse getPageAfter(String videoType, String cursor, int size, boolean card) {
+        Content[] entries = entriesOf(videoType);
+        if (entries == null) {
+            return null;
+        }
+        int offset = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            PageCursor pageCursor = PageCursor.decode(cursor);
+            Content probe = new Content();
+            probe.setVideo_id(pageCursor.getId());
+            try {
+                probe.setVideo_play_count(Long.parseLong(pageCursor.getKey()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("无效的分页游标", e);
+            }
+            offset = firstAfter(entries, probe);
+        }
+        return slice(entries, offset, size, card, false);
+    }
+
+    /**
+     * 分类列表是否已加载
+     */
+    public boolean isLoaded() {
+        return lists != null;
+    }
+
+    /**
+     * 上次刷新时是否存在该分类，分类列表尚未加载时返回false
+     */
+    public boolean hasCategory(String videoType) {
+        Map<String, Content[]> current = lists;
+        return current != null && current.containsKey(videoType);
+    }
+
+    private Content[] entriesOf(String videoType) {
+        Map<String, Content[]> current = lists;
+        return current == null ? null : current.get(videoType);
+    }
+
+    /**
+     * 二分查找排在probe之后的第一个位置
+     */
+    private static int firstAfter(Content[] entries, Content probe) {
+        int low = 0;
+        int high = entries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ORDER.compare(entries[mid], probe) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static HotVideoResponse slice(Content[] entries, int offset, int size, boolean card, boolean full) {
+        int end = Math.min(offset + size, entries.length);
+        List<ContentCard> videos = new ArrayList<>(Math.max(0, end - offset));
+        for (int i = offset; i < end; i++) {
+            if (card) {
+                ContentCard item = new ContentCard();
+                BeanUtils.copyProperties(entries[i], item);
+                videos.add(item);
+            } else {
+                videos.add(entries[i]);
+            }
+        }
+        boolean hasMore = offset + size < entries.length || (offset + size == entries.length && full);
+        HotVideoResponse response = new HotVideoResponse(videos, hasMore);
+        if (end > offset && end < entries.length) {
+            Content last = entries[end - 1];
+            response.setNextCursor(new PageCursor(String.valueOf(last.getVideo_play_count()), last.getVideo_id()).encode());
+        }
+        return response;
+    }
+}
@@ -0,0 +1,400 @@
+package com.tlias.paper0_1.component;
+
+import com.tlias.paper0_1.entity.CacheStats;
+import com.tlias.paper0_1.entity.Content;
+import com.tlias.paper0_1.tools.FrequencySketch;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 视频详情缓存（按video_id）
+ * 采用W-TinyLFU结构：新条目先进入约占1%容量的窗口区，被挤出窗口时与主区的淘汰候选比较访问频率，
+ * 频率更高者留下，避免一次性扫描的冷数据把热点视频挤出缓存；主区再分为试用区和保护区（SLRU）
+ * 容量按估算的对象字节数计算；条目超过refresh-after后先返回旧值并在后台重新加载，超过ttl后不再使用，
+ * 因此热点视频的读取不会走到数据库
+ * 点赞、不喜欢、同步统计数据等写操作后调用invalidate使条目失效
+ */
+@Component
+public class ContentCache {
+
+    /**
+     * 缓存总容量（估算字节数）
+     */
+    @Value("${paper.content-cache.max-weight-bytes:33554432}")
+    private long maxWeight;
+
+    /**
+     * 条目超过该时长后在后台重新加载（毫秒）
+     */
+    @Value("${paper.content-cache.refresh-after-ms:60000}")
+    private long refreshAfterMs;
+
+    /**
+     * 条目最长存活时间（毫秒），超过后同步重新加载
+     */
+    @Value("${paper.content-cache.ttl-ms:600000}")
+    private long ttlMs;
+
+    private long windowMax;
+
+    private long protectedMax;
+
+    private long windowWeight;
+
+    private long probationWeight;
+
+    private long protectedWeight;
+
+    private final LinkedHashMap<String, Node> window = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LinkedHashMap<String, Node> probation = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LinkedHashMap<String, Node> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+    private FrequencySketch sketch;
+
+    /**
+     * 失效序号：每次invalidate递增，用于丢弃失效之前开始、失效之后才完成的加载结果
+     */
+    private long invalidationSeq;
+
+    /**
+     * 最近被失效的键 -> 失效序号，超出上限时淘汰最旧的并把其序号记入invalidationFloor
+     */
+    private final LinkedHashMap<String, Long> recentInvalidations = new LinkedHashMap<>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            if (size() > MAX_TRACKED_INVALIDATIONS) {
+                invalidationFloor = Math.max(invalidationFloor, eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private static final int MAX_TRACKED_INVALIDATIONS = 10000;
+
+    private long invalidationFloor;
+
+    /**
+     * 同一个键并发未命中时只加载一次
+     */
+    private final Map<String, CompletableFuture<Content>> loading = new ConcurrentHashMap<>();
+
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "content-cache-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder loads = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder rejections = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        windowMax = Math.max(1, maxWeight / 100);
+        protectedMax = (maxWeight - windowMax) * 4 / 5;
+        // 按平均每条约1KB估算需要跟踪的键数量
+        sketch = new FrequencySketch((int) Math.min(1 << 22, Math.max(1024, maxWeight / 1024)));
+    }
+
+    /**
+     * 读取视频，未命中时通过loader加载并放入缓存
+     *
+     * @param videoId 视频ID
+     * @param loader  实际的加载方法，返回null表示视频不存在（不缓存）
+     * @return 视频信息，不存在时返回null
+     */
+    public Content get(String videoId, Function<String, Content> loader) {
+        if (videoId == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        Node node;
+        synchronized (this) {
+            sketch.increment(videoId);
+            node = touch(videoId);
+            if (node != null && now - node.loadedAt > ttlMs) {
+                remove(videoId);
+                node = null;
+            }
+        }
+        if (node != null) {
+            hits.increment();
+            if (now - node.loadedAt > refreshAfterMs && refreshing.add(videoId)) {
+                refreshAsync(videoId, loader);
+            }
+            return node.value;
+        }
+        misses.increment();
+        return load(videoId, loader);
+    }
+
+    /**
+     * 批量读取视频，未命中的视频通过batchLoader一次加载并放入缓存
+     * 超过refresh-after的条目照常返回，等待单条读取时再后台刷新
+     *
+     * @param videoIds    视频ID列表
+     * @param batchLoader 批量加载方法，返回找到的视频（顺序不限）
+     * @return 视频ID -> 视频信息，不存在的视频不在结果中
+     */
+    public Map<String, Content> getAll(List<String> videoIds, Function<List<String>, List<Content>> batchLoader) {
+        Map<String, Content> result = new HashMap<>(videoIds.size() * 2);
+        List<String> missing = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        long seq;
+        synchronized (this) {
+            seq = invalidationSeq;
+            for (String videoId : videoIds) {
+                if (videoId == null || result.containsKey(videoId)) {
+                    continue;
+                }
+                sketch.increment(videoId);
+                Node node = touch(videoId);
+                if (node != null && now - node.loadedAt > ttlMs) {
+                    remove(videoId);
+                    node = null;
+                }
+                if (node != null) {
+                    result.put(videoId, node.value);
+                } else {
+                    missing.add(videoId);
+                }
+            }
+        }
+        hits.add(result.size());
+        misses.add(missing.size());
+        if (missing.isEmpty()) {
+            return result;
+        }
+        loads.increment();
+        List<Content> loaded = batchLoader.apply(missing);
+        synchronized (this) {
+            for (Content value : loaded) {
+                String videoId = value.getVideo_id();
+                result.put(videoId, value);
+                if (recentInvalidations.getOrDefault(videoId, invalidationFloor) <= seq) {
+                    put(videoId, value);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 使指定视频的缓存失效，数据更新后调用
+     */
+    public synchronized void invalidate(String videoId) {
+        if (videoId == null) {
+            return;
+        }
+        invalidationSeq++;
+        recentInvalidations.put(videoId, invalidationSeq);
+        remove(videoId);
+    }
+
+    /**
+     * 当前的命中统计
+     */
+    public CacheStats stats() {
+        CacheStats stats = new CacheStats();
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        stats.setHits(hitCount);
+        stats.setMisses(missCount);
+        stats.setHitRate(hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.setLoads(loads.sum());
+        stats.setEvictions(evictions.sum());
+        stats.setRejections(rejections.sum());
+        synchronized (this) {
+            stats.setSize((long) (window.size() + probation.size() + protectedSegment.size()));
+            stats.setWeightBytes(windowWeight + probationWeight + protectedWeight);
+        }
+        stats.setMaxWeightBytes(maxWeight);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private Content load(String videoId, Function<String, Content> loader) {
+        CompletableFuture<Content> future = new CompletableFuture<>();
+        CompletableFuture<Content> existing = loading.putIfAbsent(videoId, future);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            Content value = loadAndPut(videoId, loader);
+            future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(videoId, future);
+        }
+    }
+
+    private void refreshAsync(String videoId, Function<String, Content> loader) {
+        refresher.execute(() -> {
+            try {
+                loadAndPut(videoId, loader);
+            } catch (Exception e) {
+                e.printStackTrace();
+            } finally {
+                refreshing.remove(videoId);
+            }
+        });
+    }
+
+    private Content loadAndPut(String videoId, Function<String, Content> loader) {
+        long seq;
+        synchronized (this) {
+            seq = invalidationSeq;
+        }
+        loads.increment();
+        Content value = loader.apply(videoId);
+        synchronized (this) {
+            long invalidatedAt = recentInvalidations.getOrDefault(videoId, invalidationFloor);
+            if (value == null) {
+                remove(videoId);
+            } else if (invalidatedAt <= seq) {
+                put(videoId, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 查找条目并更新其在所在分区中的位置；试用区命中的条目晋升到保护区
+     */
+    private Node touch(String key) {
+        Node node = window.get(key);
+        if (node != null) {
+            return node;
+        }
+        node = protectedSegment.get(key);
+        if (node != null) {
+            return node;
+        }
+        node = probation.remove(key);
+        if (node == null) {
+            return null;
+        }
+        probationWeight -= node.weight;
+        protectedSegment.put(key, node);
+        protectedWeight += node.weight;
+        while (protectedWeight > protectedMax && !protectedSegment.isEmpty()) {
+            Map.Entry<String, Node> eldest = protectedSegment.entrySet().iterator().next();
+            protectedSegment.remove(eldest.getKey());
+            protectedWeight -= eldest.getValue().weight;
+            probation.put(eldest.getKey(), eldest.getValue());
+            probationWeight += eldest.getValue().weight;
+        }
+        return node;
+    }
+
+    private void put(String key, Content value) {
+        remove(key);
+        Node node = new Node(value, weigh(value), System.currentTimeMillis());
+        if (node.weight > maxWeight) {
+            return;
+        }
+        window.put(key, node);
+        windowWeight += node.weight;
+        while (windowWeight > windowMax && !window.isEmpty()) {
+            Iterator<Map.Entry<String, Node>> it = window.entrySet().iterator();
+            Map.Entry<String, Node> candidate = it.next();
+            it.remove();
+            windowWeight -= candidate.getValue().weight;
+            admit(candidate.getKey(), candidate.getValue());
+        }
+    }
+
+    /**
+     * 窗口区淘汰的条目尝试进入主区：主区空间不足时，与试用区最久未访问的条目比较频率，更高者保留
+     */
+    private void admit(String key, Node candidate) {
+        long mainMax = maxWeight - windowMax;
+        int candidateFrequency = sketch.frequency(key);
+        while (probationWeight + protectedWeight + candidate.weight > mainMax) {
+            LinkedHashMap<String, Node> victims = probation.isEmpty() ? protectedSegment : probation;
+            if (victims.isEmpty()) {
+                break;
+            }
+            Map.Entry<String, Node> victim = victims.entrySet().iterator().next();
+            if (sketch.frequency(victim.getKey()) >= candidateFrequency) {
+                rejections.increment();
+                return;
+            }
+            remove(victim.getKey());
+            evictions.increment();
+        }
+        probation.put(key, candidate);
+        probationWeight += candidate.weight;
+    }
+
+    private void remove(String key) {
+        Node node = window.remove(key);
+        if (node != null) {
+            windowWeight -= node.weight;
+            return;
+        }
+        node = probation.remove(key);
+        if (node != null) {
+            probationWeight -= node.weight;
+            return;
+        }
+        node = protectedSegment.remove(key);
+        if (node != null) {
+            protectedWeight -= node.weight;
+        }
+    }
+
+    /**
+     * 估算视频对象占用的字节数：对象头和数值字段按固定值，字符串按每字符2字节
+     */
+    private static long weigh(Content c) {
+        long weight = 160;
+        String[] strings = {
+                c.getVideo_id(), c.getVideo_type(), c.getTitle(), c.getDescription(), c.getCreate_time(), c.getAuthor_id(),
+                c.getNick_name(), c.getVideo_url(), c.getVideo_cover_url(), c.getStatus(), c.getSource_keyword()
+        };
+        for (String s : strings) {
+            if (s != null) {
+                weight += 40 + 2L * s.length();
+            }
+        }
+        return weight;
+    }
+
+    private record Node(Content value, long weight, long loadedAt) {
+    }
+}
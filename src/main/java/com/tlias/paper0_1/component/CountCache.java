@@ -0,0 +1,141 @@
+package com.tlias.paper0_1.component;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
+
+/**
+ * 分页总数缓存
+ * 按查询形态（如归一化后的标题关键词）缓存 count(*) 结果，避免每次翻页都统计全表
+ * 缓存超过refresh-after后仍先返回旧值，同时在后台线程重新统计；
+ * 超过max-staleness的值不再使用，改为同步重新统计，以此限定总数的最大误差时间；
+ * 同一个键同时需要同步统计时只统计一次，其余请求等待并共用结果
+ */
+@Component
+public class CountCache {
+
+    /**
+     * 缓存值超过该时长后触发后台刷新（毫秒）
+     */
+    @Value("${paper.count-cache.refresh-after-ms:30000}")
+    private long refreshAfterMs;
+
+    /**
+     * 缓存值允许的最大陈旧时长（毫秒），超过后同步重新统计
+     */
+    @Value("${paper.count-cache.max-staleness-ms:300000}")
+    private long maxStalenessMs;
+
+    /**
+     * 最多缓存的查询形态数量，超出时淘汰最久未使用的
+     */
+    @Value("${paper.count-cache.max-entries:1000}")
+    private int maxEntries;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, CompletableFuture<Long>> loading = new ConcurrentHashMap<>();
+
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "count-cache-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 获取总数，命中缓存时不访问数据库
+     *
+     * @param key     查询形态，如 "all"、"title:关键词"
+     * @param counter 实际的统计方法
+     * @return 总数（可能是近似值）
+     */
+    public long get(String key, LongSupplier counter) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        long age = entry == null ? Long.MAX_VALUE : System.currentTimeMillis() - entry.loadedAt;
+        if (age > maxStalenessMs) {
+            return load(key, counter);
+        }
+        if (age > refreshAfterMs && refreshing.add(key)) {
+            refresher.execute(() -> {
+                try {
+                    put(key, counter.getAsLong());
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        }
+        return entry.value;
+    }
+
+    /**
+     * 同步统计并写入缓存，同一个键同时只有一个请求执行统计
+     */
+    private long load(String key, LongSupplier counter) {
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        CompletableFuture<Long> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            long value = counter.getAsLong();
+            put(key, value);
+            future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    /**
+     * 写入最新的精确总数
+     *
+     * @param key   查询形态
+     * @param value 总数
+     */
+    public void put(String key, long value) {
+        synchronized (entries) {
+            entries.put(key, new Entry(value, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * 清空全部缓存，数据发生批量变化时调用
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private record Entry(long value, long loadedAt) {
+    }
+}
@@ -0,0 +1,299 @@
+package com.tlias.paper0_1.component;
+
+import com.tlias.paper0_1.entity.CounterDelta;
+import com.tlias.paper0_1.mapper.ContentMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 点赞、不喜欢计数的写后缓冲
+ * 每次点击只在内存中对应视频的LongAdder上累加（分段计数，多线程同时点赞同一视频互不竞争），
+ * 定时或累积的点击数超过阈值时把每个视频的净增量合并成多行UPDATE批量写回，
+ * 热门视频被大量点击时不再反复争抢数据库同一行的行锁
+ * 应用关闭时会把剩余增量全部写回；所有返回视频的读取路径都调用pendingLiked/pendingDisliked叠加尚未写回的部分，
+ * 正在写回的增量在提交、详情缓存失效和回调都完成之前仍计入其中，读取不会少算正在写回的一批
+ * 排行榜等内存结构通过addFlushListener在每批增量写回后一次性更新，不必逐次点击复制
+ */
+@Component
+public class CounterBuffer {
+
+    @Autowired
+    private ContentMapper contentMapper;
+
+    @Autowired
+    private ContentCache contentCache;
+
+    /**
+     * 未写回的点击数超过该值时立即触发一次写回
+     */
+    @Value("${paper.counter.flush-threshold:1000}")
+    private long flushThreshold;
+
+    /**
+     * 单条UPDATE语句最多包含的视频数量
+     */
+    @Value("${paper.counter.batch-size:200}")
+    private int batchSize;
+
+    private final Map<String, Deltas> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 已从pending中取出、尚未完成写回的增量，每个视频最多一条（写回只在flushLock下进行）
+     */
+    private final Map<String, CounterDelta> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 上次写回之后累积的点击数，用于判断是否达到阈值
+     */
+    private final LongAdder unflushed = new LongAdder();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * 已提交到写回线程、尚未开始执行的写回任务，最多只有一个
+     */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    /**
+     * 每批增量成功写回数据库后的回调
+     */
+    private final List<Consumer<List<CounterDelta>>> flushListeners = new CopyOnWriteArrayList<>();
+
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "counter-buffer-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 累加点赞数变化
+     *
+     * @param videoId 视频ID
+     * @param delta   变化量，正数为增加，负数为减少
+     */
+    public void addLiked(String videoId, long delta) {
+        add(videoId, delta, 0);
+    }
+
+    /**
+     * 累加不喜欢数变化
+     *
+     * @param videoId 视频ID
+     * @param delta   变化量，正数为增加，负数为减少
+     */
+    public void addDisliked(String videoId, long delta) {
+        add(videoId, 0, delta);
+    }
+
+    /**
+     * 尚未写回数据库的点赞数增量
+     */
+    public long pendingLiked(String videoId) {
+        Deltas deltas = pending.get(videoId);
+        CounterDelta writing = inFlight.get(videoId);
+        return (deltas == null ? 0 : deltas.liked.sum()) + (writing == null ? 0 : writing.getLiked_delta());
+    }
+
+    /**
+     * 尚未写回数据库的不喜欢数增量
+     */
+    public long pendingDisliked(String videoId) {
+        Deltas deltas = pending.get(videoId);
+        CounterDelta writing = inFlight.get(videoId);
+        return (deltas == null ? 0 : deltas.disliked.sum()) + (writing == null ? 0 : writing.getDisliked_delta());
+    }
+
+    /**
+     * 注册写回回调，每批增量成功写回数据库后在写回线程中调用
+     *
+     * @param listener 回调，参数为刚写回的一批增量
+     */
+    public void addFlushListener(Consumer<List<CounterDelta>> listener) {
+        flushListeners.add(listener);
+    }
+
+    /**
+     * 在没有写回进行的情况下执行action，期间的写回会等待action结束
+     * 用于从数据库全量重建内存结构：读取到的计数与之后收到的写回回调不会重叠，也不会遗漏
+     *
+     * @param action 要执行的操作，通常是一次数据库读取
+     * @return action的结果
+     */
+    public <T> T withoutFlushing(Supplier<T> action) {
+        flushLock.lock();
+        try {
+            return action.get();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 定时写回，间隔较短以限制崩溃时可能丢失的点击数
+     */
+    @Scheduled(fixedDelayString = "${paper.counter.flush-interval-ms:1000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * 把所有视频的净增量批量写回数据库
+     * 写回失败的增量重新加回缓冲，下次再试
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            unflushed.reset();
+            List<CounterDelta> batch = new ArrayList<>();
+            for (Map.Entry<String, Deltas> entry : pending.entrySet()) {
+                Deltas deltas = entry.getValue();
+                long liked = deltas.liked.sum();
+                long disliked = deltas.disliked.sum();
+                if (liked == 0 && disliked == 0) {
+                    if (deltas.idle) {
+                        retire(entry.getKey(), deltas);
+                    } else {
+                        deltas.idle = true;
+                    }
+                    continue;
+                }
+                deltas.idle = false;
+                // 先记入inFlight再从缓冲中扣除本次要写回的部分，读取始终能看到这部分增量；写回期间的新点击继续累加
+                CounterDelta delta = new CounterDelta(entry.getKey(), liked, disliked);
+                inFlight.put(entry.getKey(), delta);
+                deltas.liked.add(-liked);
+                deltas.disliked.add(-disliked);
+                batch.add(delta);
+                if (batch.size() >= batchSize) {
+                    write(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        flush();
+    }
+
+    private void add(String videoId, long likedDelta, long dislikedDelta) {
+        while (true) {
+            Deltas deltas = pending.computeIfAbsent(videoId, k -> new Deltas());
+            deltas.writers.increment();
+            try {
+                if (deltas.retired) {
+                    continue;
+                }
+                deltas.liked.add(likedDelta);
+                deltas.disliked.add(dislikedDelta);
+            } finally {
+                deltas.writers.decrement();
+            }
+            break;
+        }
+        unflushed.increment();
+        if (unflushed.sum() >= flushThreshold && !flusher.isShutdown() && flushScheduled.compareAndSet(false, true)) {
+            try {
+                flusher.execute(() -> {
+                    flushScheduled.set(false);
+                    flush();
+                });
+            } catch (RejectedExecutionException e) {
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * 移除连续两轮没有变化的视频，避免缓冲无限增长
+     * 先标记为已退役，让后来的写入改用新建的条目，再等待正在写入的线程结束，最后把漏进来的增量转移出去
+     */
+    private void retire(String videoId, Deltas deltas) {
+        deltas.retired = true;
+        pending.remove(videoId, deltas);
+        while (deltas.writers.sum() != 0) {
+            Thread.onSpinWait();
+        }
+        long liked = deltas.liked.sum();
+        long disliked = deltas.disliked.sum();
+        if (liked != 0 || disliked != 0) {
+            add(videoId, liked, disliked);
+        }
+    }
+
+    /**
+     * 写回一批增量
+     * 提交、详情缓存失效和回调都完成后才从inFlight中移除；写回失败时先加回缓冲再移除，读取期间不会少算
+     */
+    private void write(List<CounterDelta> batch) {
+        try {
+            contentMapper.applyCounterDeltas(batch);
+            for (CounterDelta delta : batch) {
+                contentCache.invalidate(delta.getVideo_id());
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            for (CounterDelta delta : batch) {
+                add(delta.getVideo_id(), delta.getLiked_delta(), delta.getDisliked_delta());
+                inFlight.remove(delta.getVideo_id(), delta);
+            }
+            return;
+        }
+        for (Consumer<List<CounterDelta>> listener : flushListeners) {
+            try {
+                listener.accept(batch);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        for (CounterDelta delta : batch) {
+            inFlight.remove(delta.getVideo_id(), delta);
+        }
+    }
+
+    /**
+     * 单个视频的未写回增量
+     */
+    private static final class Deltas {
+
+        private final LongAdder liked = new LongAdder();
+
+        private final LongAdder disliked = new LongAdder();
+
+        /**
+         * 正在累加的线程数，退役时等待其归零
+         */
+        private final LongAdder writers = new LongAdder();
+
+        private volatile boolean retired;
+
+        /**
+         * 上一轮写回时是否没有变化，仅由写回线程读写
+         */
+        private boolean idle;
+    }
+}
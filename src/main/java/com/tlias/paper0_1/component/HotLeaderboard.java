@@ -0,0 +1,293 @@
+package com.tlias.paper0_1.component;
+
+import com.tlias.paper0_1.entity.Content;
+import com.tlias.paper0_1.entity.ContentCard;
+import com.tlias.paper0_1.entity.CounterDelta;
+import com.tlias.paper0_1.entity.HotVideoResponse;
+import com.tlias.paper0_1.mapper.ContentMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 热门视频排行榜
+ * 在内存中保存点赞数前N名的视频，热门列表的分页请求直接从内存返回，不再访问数据库
+ * 点赞数的变化在计数缓冲每批写回数据库后一次性应用，同步B站统计数据时逐条调整排名，并定期从数据库全量重建以纠正偏差
+ * 读取时无锁，写入时复制出新的快照后整体替换；一批增量只复制一次，复制开销不随点击次数增长
+ */
+@Component
+public class HotLeaderboard {
+
+    /**
+     * 排序规则：点赞数降序，点赞数相同时按视频ID降序，保证顺序稳定
+     */
+    private static final Comparator<Content> ORDER = Comparator
+            .comparingLong(Content::getLiked_count).reversed()
+            .thenComparing(Content::getVideo_id, Comparator.reverseOrder());
+
+    @Autowired
+    private ContentMapper contentMapper;
+
+    @Autowired
+    private CounterBuffer counterBuffer;
+
+    /**
+     * 排行榜容量，超出容量的页面回退到数据库查询
+     */
+    @Value("${paper.hot.capacity:1000}")
+    private int capacity;
+
+    /**
+     * 当前快照，尚未加载时为null
+     */
+    private volatile Board board;
+
+    /**
+     * 全量重建读取数据库之后、替换快照之前写回的点赞数增量，替换时补上；不在重建中时为null
+     */
+    private Map<String, Long> replay;
+
+    @PostConstruct
+    public void init() {
+        counterBuffer.addFlushListener(this::onLikesFlushed);
+    }
+
+    /**
+     * 定期从数据库全量重建排行榜，纠正增量更新无法覆盖的变化（如榜外视频点赞数上涨）
+     * 读取数据库时暂停计数写回，读取之后写回的增量记入replay，替换快照时补上，不会丢失也不会重复
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${paper.hot.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        try {
+            List<Content> rows = counterBuffer.withoutFlushing(() -> {
+                List<Content> loaded = contentMapper.getHotVideos(0, capacity);
+                synchronized (this) {
+                    replay = new HashMap<>();
+                }
+                return loaded;
+            });
+            Content[] entries = new Content[rows.size()];
+            for (int i = 0; i < entries.length; i++) {
+                entries[i] = copyOf(rows.get(i));
+            }
+            synchronized (this) {
+                for (Content entry : entries) {
+                    Long delta = replay.get(entry.getVideo_id());
+                    if (delta != null) {
+                        entry.setLiked_count(entry.getLiked_count() + delta);
+                    }
+                }
+                Arrays.sort(entries, ORDER);
+                board = new Board(entries);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            synchronized (this) {
+                replay = null;
+            }
+        }
+    }
+
+    /**
+     * 从排行榜获取一页热门视频
+     *
+     * @param offset 偏移量
+     * @param size   每页大小
+     * @param card   是否只返回卡片字段
+     * @return 热门视频响应；排行榜未加载或页面超出排行榜范围时返回null，由调用方回退到数据库
+     */
+    public HotVideoResponse getPage(int offset, int size, boolean card) {
+        Board current = board;
+        if (current == null) {
+            return null;
+        }
+        Content[] entries = current.entries;
+        boolean full = entries.length >= capacity;
+        int end = offset + size;
+        if (end > entries.length && full) {
+            return null;
+        }
+        List<ContentCard> videos = new ArrayList<>(Math.max(0, Math.min(end, entries.length) - offset));
+        for (int i = offset; i < end && i < entries.length; i++) {
+            videos.add(card ? toCard(entries[i]) : entries[i]);
+        }
+        boolean hasMore = end < entries.length || (end == entries.length && full);
+        return new HotVideoResponse(videos, hasMore);
+    }
+
+    /**
+     * 排行榜前limit名的视频ID，按排名顺序
+     *
+     * @param limit 最多返回的数量
+     * @return 视频ID列表；排行榜未加载时返回空列表
+     */
+    public List<String> topVideoIds(int limit) {
+        Board current = board;
+        if (current == null) {
+            return List.of();
+        }
+        int n = Math.min(limit, current.entries.length);
+        List<String> ids = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            ids.add(current.entries[i].getVideo_id());
+        }
+        return ids;
+    }
+
+    /**
+     * 一批点赞数增量已写回数据库（由计数缓冲回调）
+     * 只调整已在榜内的视频，榜外视频的绝对点赞数未知，等待下次全量重建；整批只复制一次快照
+     *
+     * @param batch 刚写回的增量
+     */
+    synchronized void onLikesFlushed(List<CounterDelta> batch) {
+        Board current = board;
+        Map<String, Long> deltas = new HashMap<>();
+        for (CounterDelta delta : batch) {
+            if (delta.getLiked_delta() == 0) {
+                continue;
+            }
+            if (replay != null) {
+                replay.merge(delta.getVideo_id(), delta.getLiked_delta(), Long::sum);
+            }
+            if (current != null && current.positions.containsKey(delta.getVideo_id())) {
+                deltas.merge(delta.getVideo_id(), delta.getLiked_delta(), Long::sum);
+            }
+        }
+        if (!deltas.isEmpty()) {
+            board = current.apply(deltas);
+        }
+    }
+
+    /**
+     * 同步了视频的最新统计数据
+     * 榜内视频直接更新；榜外视频点赞数足以进入排行榜时从数据库加载后插入
+     *
+     * @param videoId    视频ID
+     * @param likedCount 最新点赞数
+     * @param viewCount  最新播放数
+     */
+    public void onStatsUpdated(String videoId, long likedCount, long viewCount) {
+        Board current = board;
+        if (current == null) {
+            return;
+        }
+        if (!current.positions.containsKey(videoId)) {
+            boolean qualifies = current.entries.length < capacity
+                    || likedCount > current.entries[current.entries.length - 1].getLiked_count();
+            if (!qualifies) {
+                return;
+            }
+            Content loaded = contentMapper.getContentById(videoId);
+            if (loaded == null) {
+                return;
+            }
+            insert(copyOf(loaded), likedCount, viewCount);
+            return;
+        }
+        synchronized (this) {
+            current = board;
+            Integer position = current.positions.get(videoId);
+            if (position == null) {
+                return;
+            }
+            Content updated = copyOf(current.entries[position]);
+            updated.setLiked_count(likedCount);
+            updated.setVideo_play_count(viewCount);
+            board = current.replace(position, updated);
+        }
+    }
+
+    private synchronized void insert(Content content, long likedCount, long viewCount) {
+        Board current = board;
+        if (current.positions.containsKey(content.getVideo_id())) {
+            return;
+        }
+        content.setLiked_count(likedCount);
+        content.setVideo_play_count(viewCount);
+        Content[] entries = Arrays.copyOf(current.entries, current.entries.length + 1);
+        entries[entries.length - 1] = content;
+        Arrays.sort(entries, ORDER);
+        if (entries.length > capacity) {
+            entries = Arrays.copyOf(entries, capacity);
+        }
+        board = new Board(entries);
+    }
+
+    private static Content copyOf(Content source) {
+        Content copy = new Content();
+        BeanUtils.copyProperties(source, copy);
+        return copy;
+    }
+
+    private static ContentCard toCard(Content source) {
+        ContentCard card = new ContentCard();
+        BeanUtils.copyProperties(source, card);
+        return card;
+    }
+
+    /**
+     * 排行榜快照，创建后不再修改
+     */
+    private static final class Board {
+
+        private final Content[] entries;
+
+        private final Map<String, Integer> positions;
+
+        private Board(Content[] entries) {
+            this.entries = entries;
+            this.positions = new HashMap<>(entries.length * 2);
+            for (int i = 0; i < entries.length; i++) {
+                positions.put(entries[i].getVideo_id(), i);
+            }
+        }
+
+        /**
+         * 批量调整点赞数后重新排序
+         * 调整前整体有序，只有少数条目移动，归并排序在接近有序的数组上接近线性时间
+         */
+        private Board apply(Map<String, Long> deltas) {
+            Content[] copy = entries.clone();
+            for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+                int position = positions.get(delta.getKey());
+                Content updated = copyOf(copy[position]);
+                updated.setLiked_count(updated.getLiked_count() + delta.getValue());
+                copy[position] = updated;
+            }
+            Arrays.sort(copy, ORDER);
+            return new Board(copy);
+        }
+
+        /**
+         * 替换指定位置的条目并移动到新的排名位置
+         */
+        private Board replace(int position, Content updated) {
+            Content[] copy = entries.clone();
+            int i = position;
+            copy[i] = updated;
+            while (i > 0 && ORDER.compare(copy[i], copy[i - 1]) < 0) {
+                copy[i] = copy[i - 1];
+                copy[i - 1] = updated;
+                i--;
+            }
+            while (i < copy.length - 1 && ORDER.compare(copy[i], copy[i + 1]) > 0) {
+                copy[i] = copy[i + 1];
+                copy[i + 1] = updated;
+                i++;
+            }
+            return new Board(copy);
+        }
+    }
+}
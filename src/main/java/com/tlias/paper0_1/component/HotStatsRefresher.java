@@ -0,0 +1,146 @@
+package com.tlias.paper0_1.component;
+
+import com.tlias.paper0_1.service.BilibiliService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 热门视频统计数据的后台刷新
+ * 定期按热门排行榜的顺序（点赞数从高到低）分批向B站刷新统计数据，使热门排序不再依赖用户恰好打开视频详情；
+ * 每一轮在独立线程上执行，不占用Spring的调度线程
+ * 全局按rate-per-second控制请求速率；一批中出现错误时按指数退避并加入随机抖动后再继续，
+ * 成功一批后退避时间清零
+ * 解析、缓存和写库都复用B站代理服务的流程，统计数据进入StatsBuffer后批量写回
+ */
+@Component
+public class HotStatsRefresher {
+
+    @Autowired
+    private HotLeaderboard hotLeaderboard;
+
+    @Autowired
+    private BilibiliService bilibiliService;
+
+    /**
+     * 是否启用后台刷新
+     */
+    @Value("${paper.stats.refresh.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 每轮刷新排行榜前多少名视频
+     */
+    @Value("${paper.stats.refresh.top-n:500}")
+    private int topN;
+
+    /**
+     * 每批视频数量，一批全部完成后才开始下一批
+     */
+    @Value("${paper.stats.refresh.batch-size:20}")
+    private int batchSize;
+
+    /**
+     * 每秒最多向B站发出的刷新请求数
+     */
+    @Value("${paper.stats.refresh.rate-per-second:5}")
+    private double ratePerSecond;
+
+    /**
+     * 出错后的初始退避时间（毫秒），连续出错时翻倍
+     */
+    @Value("${paper.stats.refresh.backoff-base-ms:1000}")
+    private long backoffBaseMs;
+
+    /**
+     * 退避时间上限（毫秒）
+     */
+    @Value("${paper.stats.refresh.backoff-max-ms:60000}")
+    private long backoffMaxMs;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "hot-stats-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 定时启动一轮刷新，上一轮尚未结束时跳过
+     */
+    @Scheduled(initialDelayString = "${paper.stats.refresh.initial-delay-ms:60000}",
+            fixedDelayString = "${paper.stats.refresh.interval-ms:600000}")
+    public void trigger() {
+        if (enabled && running.compareAndSet(false, true)) {
+            worker.execute(() -> {
+                try {
+                    refreshRound();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    running.set(false);
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    /**
+     * 刷新一轮：按排名分批发出请求，每批等待全部完成后根据是否出错决定退避
+     */
+    void refreshRound() throws InterruptedException {
+        List<String> ids = hotLeaderboard.topVideoIds(topN);
+        long intervalNanos = (long) (1_000_000_000L / Math.max(ratePerSecond, 0.001));
+        long nextStart = System.nanoTime();
+        int failures = 0;
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<String> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            List<CompletableFuture<Boolean>> results = new ArrayList<>(batch.size());
+            for (String videoId : batch) {
+                long wait = nextStart - System.nanoTime();
+                if (wait > 0) {
+                    Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                }
+                nextStart = Math.max(nextStart, System.nanoTime()) + intervalNanos;
+                results.add(bilibiliService.refreshStats(videoId));
+            }
+            boolean failed = false;
+            for (CompletableFuture<Boolean> result : results) {
+                failed |= !result.exceptionally(e -> false).join();
+            }
+            if (!failed) {
+                failures = 0;
+                continue;
+            }
+            failures++;
+            Thread.sleep(backoffMillis(failures));
+            nextStart = System.nanoTime();
+        }
+    }
+
+    /**
+     * 第n次连续出错的退避时间：base * 2^(n-1)，不超过上限，再乘以[0.5, 1.5)的随机系数
+     */
+    private long backoffMillis(int failures) {
+        long backoff = backoffBaseMs << Math.min(failures - 1, 20);
+        backoff = Math.min(backoff, backoffMaxMs);
+        return (long) (backoff * (0.5 + ThreadLocalRandom.current().nextDouble()));
+    }
+}
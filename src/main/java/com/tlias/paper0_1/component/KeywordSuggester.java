@@ -0,0 +1,117 @@
+package com.tlias.paper0_1.component;
+
+import com.tlias.paper0_1.entity.SearchRecord;
+import com.tlias.paper0_1.mapper.SearchRecordMapper;
+import com.tlias.paper0_1.tools.QueryNormalizer;
+import com.tlias.paper0_1.tools.TopKTrie;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 搜索词补全
+ * 定期从search_record表读出全部关键词和搜索次数，构建带前缀Top-K的字典树，构建完成后整体替换；
+ * 查询只读取当前字典树，不加锁，也不会被重建阻塞
+ * 关键词按QueryNormalizer归一化后合并次数，返回次数最多的那种写法
+ */
+@Component
+public class KeywordSuggester {
+
+    /**
+     * 超过该长度的关键词不参与补全
+     */
+    private static final int MAX_KEYWORD_LENGTH = 64;
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    /**
+     * 每个前缀预先保留的候选数，也是单次查询最多返回的条数
+     */
+    @Value("${paper.search.suggest.top-k:10}")
+    private int topK;
+
+    /**
+     * 当前字典树，首次构建完成前为null
+     */
+    private volatile TopKTrie trie;
+
+    /**
+     * 从数据库重建字典树
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${paper.search.suggest.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        Map<String, Keyword> merged = new HashMap<>();
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Cursor<SearchRecord> rows = session.getMapper(SearchRecordMapper.class).streamKeywordCounts()) {
+            for (SearchRecord row : rows) {
+                if (row.getKeyword() == null || row.getCount() == null) {
+                    continue;
+                }
+                String key = QueryNormalizer.normalize(row.getKeyword());
+                if (key.isEmpty() || key.length() > MAX_KEYWORD_LENGTH) {
+                    continue;
+                }
+                merged.computeIfAbsent(key, k -> new Keyword()).add(row.getKeyword().trim(), row.getCount());
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            return;
+        }
+        String[] keys = new String[merged.size()];
+        String[] displays = new String[merged.size()];
+        long[] counts = new long[merged.size()];
+        int i = 0;
+        for (Map.Entry<String, Keyword> entry : merged.entrySet()) {
+            keys[i] = entry.getKey();
+            displays[i] = entry.getValue().display;
+            counts[i] = entry.getValue().total;
+            i++;
+        }
+        trie = TopKTrie.build(keys, displays, counts, topK);
+    }
+
+    /**
+     * 查询以prefix开头、搜索次数最多的关键词
+     *
+     * @param prefix 用户已输入的内容
+     * @param limit  最多返回的条数，不超过top-k
+     * @return 按搜索次数从多到少排列的关键词；索引尚未构建时返回空列表
+     */
+    public List<String> suggest(String prefix, int limit) {
+        TopKTrie current = trie;
+        if (current == null) {
+            return Collections.emptyList();
+        }
+        return current.suggest(QueryNormalizer.normalize(prefix), limit);
+    }
+
+    /**
+     * 归一化后相同的关键词的合并结果
+     */
+    private static final class Keyword {
+
+        private String display;
+
+        private long displayCount = -1;
+
+        private long total;
+
+        void add(String keyword, long count) {
+            total += count;
+            if (count > displayCount) {
+                display = keyword;
+                displayCount = count;
+            }
+        }
+    }
+}
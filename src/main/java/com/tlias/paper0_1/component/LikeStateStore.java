@@ -0,0 +1,280 @@
+package com.tlias.paper0_1.component;
+
+import com.tlias.paper0_1.mapper.ContentMapper;
+import com.tlias.paper0_1.mapper.LikeStateMapper;
+import com.tlias.paper0_1.service.UserLikesService;
+import com.tlias.paper0_1.tools.IntBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户点赞状态存储
+ * 每个用户的点赞状态以压缩位图的形式保存在内存中（视频ID经VideoIdDictionary转换为整数）：
+ * 用户第一次被访问时用一条查询读出其全部点赞记录放入liked，之后该用户的单个和批量检查都只读位图，不访问数据库；
+ * 点赞过的视频在加载时都已分配编号，尚未分配编号的视频一定没有被点赞，不需要再确认视频是否存在
+ * 一次性加载失败时（如点赞记录表不可用）退回逐个视频向UserLikesService确认，known记录已确认过的视频
+ * 点赞切换先通过UserLikesService.handleLike写入数据库，成功后才更新内存并返回成功，同一用户的切换按顺序执行；
+ * 写入失败时内存状态可能与数据库不一致，该用户下次访问时重新加载
+ * 最多保留max-users个用户，超出时淘汰最久未访问、且没有正在进行的点赞切换的用户
+ * 切换时只有确实存在的视频才会分配整数编号，不存在的视频ID不会让字典增长
+ */
+@Component
+public class LikeStateStore {
+
+    @Autowired
+    private UserLikesService userLikesService;
+
+    @Autowired
+    private VideoIdDictionary videoIdDictionary;
+
+    @Autowired
+    private ContentCache contentCache;
+
+    @Autowired
+    private ContentMapper contentMapper;
+
+    @Autowired
+    private LikeStateMapper likeStateMapper;
+
+    /**
+     * 点赞记录表，需要有user_id、video_id两列，与UserLikesService写入的表一致
+     */
+    @Value("${paper.like-state.table:user_likes}")
+    private String likeTable;
+
+    /**
+     * 内存中最多保留的用户数量
+     */
+    @Value("${paper.like-state.max-users:100000}")
+    private int maxUsers;
+
+    private final Map<String, UserLikes> users = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, UserLikes> eldest) {
+            if (size() <= maxUsers) {
+                return false;
+            }
+            // 正在切换点赞的用户不淘汰，从最久未访问的开始找第一个可以淘汰的
+            Iterator<UserLikes> iterator = values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().switching == 0) {
+                    iterator.remove();
+                    break;
+                }
+            }
+            return false;
+        }
+    };
+
+    /**
+     * 用户是否已点赞视频
+     */
+    public boolean isLiked(String userId, String videoId) {
+        UserLikes state = stateOf(userId);
+        synchronized (state) {
+            return state.isLiked(userId, videoId);
+        }
+    }
+
+    /**
+     * 在给定的视频中找出用户已点赞的
+     * 用户的点赞记录加载后只读位图；只有一次性加载失败时才逐个向UserLikesService确认
+     *
+     * @param userId   用户ID
+     * @param videoIds 视频ID列表
+     * @return 已点赞的视频ID，保持videoIds中的顺序
+     */
+    public List<String> filterLiked(String userId, List<String> videoIds) {
+        UserLikes state = stateOf(userId);
+        List<String> result = new ArrayList<>();
+        synchronized (state) {
+            for (String videoId : videoIds) {
+                if (state.isLiked(userId, videoId)) {
+                    result.add(videoId);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 点赞或取消点赞
+     * 先写入数据库，成功后再更新内存中的状态；写入失败时丢弃该用户的内存状态，下次访问时重新加载
+     *
+     * @param userId  用户ID
+     * @param videoId 视频ID
+     * @param like    true为点赞，false为取消点赞
+     * @return 写入成功时返回true；视频不存在或写入失败时返回false
+     */
+    public boolean toggle(String userId, String videoId, boolean like) {
+        int id = idOf(videoId);
+        if (id < 0) {
+            return false;
+        }
+        UserLikes state = acquire(userId);
+        try {
+            synchronized (state) {
+                boolean success;
+                try {
+                    success = userLikesService.handleLike(userId, videoId, like);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    success = false;
+                }
+                if (success) {
+                    state.known.add(id);
+                    if (like) {
+                        state.liked.add(id);
+                    } else {
+                        state.liked.remove(id);
+                    }
+                } else {
+                    state.reset();
+                }
+                return success;
+            }
+        } finally {
+            release(state);
+        }
+    }
+
+    /**
+     * 视频ID对应的整数编号，尚未分配时只为确实存在的视频分配
+     *
+     * @return 编号；视频不存在时返回-1
+     */
+    private int idOf(String videoId) {
+        int id = videoIdDictionary.lookup(videoId);
+        if (id >= 0) {
+            return id;
+        }
+        if (contentCache.get(videoId, contentMapper::getContentById) == null) {
+            return -1;
+        }
+        return videoIdDictionary.intern(videoId);
+    }
+
+    /**
+     * 获取用户的点赞状态，不在内存中时创建空的状态，查询时再逐个确认
+     */
+    private UserLikes stateOf(String userId) {
+        synchronized (users) {
+            return users.computeIfAbsent(userId, k -> new UserLikes());
+        }
+    }
+
+    /**
+     * 获取用户的点赞状态并标记为正在切换，切换结束前不会被淘汰
+     */
+    private UserLikes acquire(String userId) {
+        synchronized (users) {
+            UserLikes state = users.get(userId);
+            if (state == null) {
+                state = new UserLikes();
+                state.switching++;
+                users.put(userId, state);
+            } else {
+                state.switching++;
+            }
+            return state;
+        }
+    }
+
+    private void release(UserLikes state) {
+        synchronized (users) {
+            state.switching--;
+        }
+    }
+
+    /**
+     * 单个用户的点赞状态，位图和加载状态由该对象的锁保护
+     */
+    private final class UserLikes {
+
+        /**
+         * 逐个确认模式下已经确认过点赞状态的视频；complete为true时不使用
+         */
+        private IntBitmap known = new IntBitmap();
+
+        /**
+         * 已点赞的视频；complete为true时是全部点赞记录，否则是known的子集
+         */
+        private IntBitmap liked = new IntBitmap();
+
+        /**
+         * 是否已经一次性加载了全部点赞记录
+         */
+        private boolean complete;
+
+        /**
+         * 是否已经尝试过一次性加载，失败后不再重试，改为逐个确认
+         */
+        private boolean loadAttempted;
+
+        /**
+         * 正在进行的点赞切换数，由users的锁保护
+         */
+        private int switching;
+
+        /**
+         * 查询点赞状态，第一次访问时先一次性加载全部点赞记录
+         */
+        private boolean isLiked(String userId, String videoId) {
+            load(userId);
+            if (complete) {
+                int id = videoIdDictionary.lookup(videoId);
+                return id >= 0 && liked.contains(id);
+            }
+            int id = idOf(videoId);
+            if (id < 0) {
+                return false;
+            }
+            if (!known.contains(id)) {
+                if (userLikesService.isLiked(userId, videoId)) {
+                    liked.add(id);
+                }
+                known.add(id);
+            }
+            return liked.contains(id);
+        }
+
+        /**
+         * 一次查询读出用户的全部点赞记录，点赞过的视频都分配编号
+         * 失败时保持逐个确认模式
+         */
+        private void load(String userId) {
+            if (loadAttempted) {
+                return;
+            }
+            loadAttempted = true;
+            try {
+                IntBitmap loaded = new IntBitmap();
+                for (String videoId : likeStateMapper.selectLikedVideoIds(likeTable, userId)) {
+                    loaded.add(videoIdDictionary.intern(videoId));
+                }
+                liked = loaded;
+                known = new IntBitmap();
+                complete = true;
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+
+        /**
+         * 丢弃内存状态，下次访问时重新加载
+         */
+        private void reset() {
+            known = new IntBitmap();
+            liked = new IntBitmap();
+            complete = false;
+            loadAttempted = false;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.tlias.paper0_1.component;
+
+import com.tlias.paper0_1.mapper.ContentMapper;
+import com.tlias.paper0_1.tools.FeedToken;
+import com.tlias.paper0_1.tools.SeededPermutation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 随机视频抽样器
+ * 在内存中保存videos_hot表的全部视频ID，定期刷新
+ * 随机推荐时在内存中无放回地均匀抽取ID，再按主键批量查询，
+ * 代替 ORDER BY RAND() 的全表扫描和排序，单次请求的开销只与抽取数量有关
+ * 另外提供无状态的信息流模式：按种子确定的伪随机排列依次取出ID，前端只需回传令牌，无需回传已看过的ID
+ * ID池内容变化时才生成新版本，最近的若干个版本会保留下来，令牌记录开始时的版本，
+ * 同一个信息流始终在同一版本的池上遍历，因此不会重复；版本过旧被淘汰后在当前池上重新开始
+ */
+@Component
+public class RandomVideoSampler {
+
+    /**
+     * 信息流单页最多返回的数量
+     */
+    private static final int MAX_FEED_PAGE_SIZE = 100;
+
+    @Autowired
+    private ContentMapper contentMapper;
+
+    /**
+     * 信息流保留的ID池版本数，版本被淘汰后持有旧令牌的信息流重新开始
+     */
+    @Value("${paper.random.feed-generations:5}")
+    private int feedGenerations;
+
+    /**
+     * 当前ID池，尚未加载时为null
+     */
+    private volatile Pool pool;
+
+    /**
+     * 最近的ID池版本，供信息流按令牌中的版本继续遍历
+     */
+    private final Map<Long, Pool> generations = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Pool> eldest) {
+            return size() > feedGenerations;
+        }
+    };
+
+    /**
+     * 定期从videos_hot表重新加载ID池，内容没有变化时保留当前版本
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${paper.random.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            String[] ids = contentMapper.getHotVideoIds().toArray(new String[0]);
+            Pool current = pool;
+            if (current != null && Arrays.equals(current.ids, ids)) {
+                return;
+            }
+            // 版本号取随机数，重启后旧进程发出的令牌不会对上新池
+            Pool loaded = new Pool(ThreadLocalRandom.current().nextLong(), ids);
+            synchronized (generations) {
+                generations.put(loaded.generation, loaded);
+            }
+            pool = loaded;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * ID池是否已加载
+     */
+    public boolean isReady() {
+        return pool != null;
+    }
+
+    /**
+     * 无放回地随机抽取视频ID
+     * 使用稀疏的Fisher-Yates洗牌，只记录被交换过的位置，跳过需要排除的ID
+     *
+     * @param count      抽取数量
+     * @param excludeIds 需要排除的视频ID，可为null
+     * @return 抽中的视频ID（随机顺序）；ID池尚未加载时返回null
+     */
+    public List<String> sample(int count, Collection<String> excludeIds) {
+        Pool current = pool;
+        if (current == null) {
+            return null;
+        }
+        String[] ids = current.ids;
+        int n = ids.length;
+        Set<Integer> excluded = current.positionsOf(excludeIds);
+        int target = Math.min(count, n - excluded.size());
+        List<String> result = new ArrayList<>(Math.max(0, target));
+        if (target <= 0) {
+            return result;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<Integer, Integer> swapped = new HashMap<>();
+        for (int i = 0; i < n && result.size() < target; i++) {
+            int j = i + random.nextInt(n - i);
+            int picked = swapped.getOrDefault(j, j);
+            swapped.put(j, swapped.getOrDefault(i, i));
+            if (!excluded.contains(picked)) {
+                result.add(ids[picked]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按令牌读取信息流的下一页ID
+     * 第一次请求时生成新的种子并记录当前池的版本，之后每页都是同一版本的池上同一个排列的下一段，不会重复
+     * 排列长度取自服务端保存的池，每个位置恰好对应一个ID，单次请求最多遍历MAX_FEED_PAGE_SIZE个位置
+     * 令牌中的版本已被淘汰时在当前池上开始新的信息流，可能与之前看过的视频重复
+     *
+     * @param token 上一页返回的令牌，为空时开始新的信息流
+     * @param count 每页数量，超过MAX_FEED_PAGE_SIZE时按MAX_FEED_PAGE_SIZE处理
+     * @return 本页ID和下一页令牌；ID池尚未加载时返回null
+     * @throws IllegalArgumentException 令牌格式不正确或位置超出池范围时抛出
+     */
+    public FeedPage nextFeedPage(String token, int count) {
+        Pool current = pool;
+        if (current == null) {
+            return null;
+        }
+        FeedToken feedToken = token == null || token.isEmpty() ? null : FeedToken.decode(token);
+        Pool feedPool = null;
+        if (feedToken != null) {
+            synchronized (generations) {
+                feedPool = generations.get(feedToken.getGeneration());
+            }
+        }
+        if (feedPool == null) {
+            feedPool = current;
+            feedToken = new FeedToken(ThreadLocalRandom.current().nextLong(), 0, current.generation);
+        }
+        String[] poolIds = feedPool.ids;
+        long position = feedToken.getPosition();
+        if (position > poolIds.length) {
+            throw new IllegalArgumentException("无效的信息流令牌");
+        }
+        int limit = Math.min(Math.max(0, count), MAX_FEED_PAGE_SIZE);
+        List<String> ids = new ArrayList<>(limit);
+        if (poolIds.length > 0) {
+            SeededPermutation permutation = new SeededPermutation(feedToken.getSeed(), poolIds.length);
+            while (position < poolIds.length && ids.size() < limit) {
+                ids.add(poolIds[(int) permutation.get(position++)]);
+            }
+        }
+        boolean hasMore = position < poolIds.length;
+        String nextToken = hasMore ? new FeedToken(feedToken.getSeed(), position, feedPool.generation).encode() : null;
+        return new FeedPage(ids, hasMore, nextToken);
+    }
+
+    /**
+     * 排除指定ID后剩余的视频数量
+     *
+     * @param excludeIds 需要排除的视频ID，可为null
+     * @return 剩余数量；ID池尚未加载时返回-1
+     */
+    public long remaining(Collection<String> excludeIds) {
+        Pool current = pool;
+        if (current == null) {
+            return -1;
+        }
+        return current.ids.length - current.positionsOf(excludeIds).size();
+    }
+
+    /**
+     * 信息流的一页结果
+     *
+     * @param ids       本页视频ID
+     * @param hasMore   是否还有下一页
+     * @param nextToken 下一页令牌，没有更多时为null
+     */
+    public record FeedPage(List<String> ids, boolean hasMore, String nextToken) {
+    }
+
+    /**
+     * ID池快照，创建后不再修改
+     */
+    private static final class Pool {
+
+        private final long generation;
+
+        private final String[] ids;
+
+        private final Map<String, Integer> positions;
+
+        private Pool(long generation, String[] ids) {
+            this.generation = generation;
+            this.ids = ids;
+            this.positions = new HashMap<>(ids.length * 2);
+            for (int i = 0; i < ids.length; i++) {
+                positions.put(ids[i], i);
+            }
+        }
+
+        /**
+         * 把需要排除的ID转换为池中的位置，不在池中的ID忽略
+         */
+        private Set<Integer> positionsOf(Collection<String> excludeIds) {
+            if (excludeIds == null || excludeIds.isEmpty()) {
+                return Set.of();
+            }
+            Set<Integer> result = new HashSet<>();
+            for (String id : excludeIds) {
+                Integer position = positions.get(id);
+                if (position != null) {
+                    result.add(position);
+                }
+            }
+            return result;
+        }
+    }
+}
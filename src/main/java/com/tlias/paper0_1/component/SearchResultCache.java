@@ -0,0 +1,157 @@
+package com.tlias.paper0_1.component;
+
+import com.tlias.paper0_1.entity.SearchHits;
+import com.tlias.paper0_1.mapper.ContentMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 标题搜索结果缓存
+ * 按搜索引擎、关键词在该引擎下的等价形式（SearchEngine.queryKey）和分页位置缓存一页结果的视频ID（以及引擎顺带给出的总数），
+ * 不缓存视频详情，详情仍从视频详情缓存中取出，点赞等变化不会因为本缓存而延迟
+ * 条目存活ttl后失效，条目数超过上限时淘汰最久未使用的；同一个键同时未命中时只查询一次
+ * 定期检查最新视频的创建时间，发现新增视频时清空全部条目，新视频不会因为缓存而搜不到
+ */
+@Component
+public class SearchResultCache {
+
+    @Autowired
+    private ContentMapper contentMapper;
+
+    /**
+     * 条目存活时间（毫秒）
+     */
+    @Value("${paper.search.result-cache.ttl-ms:30000}")
+    private long ttlMs;
+
+    /**
+     * 最多缓存的页数，超出时淘汰最久未使用的
+     */
+    @Value("${paper.search.result-cache.max-entries:10000}")
+    private int maxEntries;
+
+    /**
+     * 单页ID数量超过该值时不缓存（如不分页的全量搜索）
+     */
+    @Value("${paper.search.result-cache.max-ids:200}")
+    private int maxIds;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private final Map<String, CompletableFuture<SearchHits>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * 每次清空时加一，清空前开始的查询结果不再写入缓存
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * 上次检查时最新视频的创建时间
+     */
+    private volatile String latestCreateTime;
+
+    /**
+     * 获取一页搜索结果，未命中时调用loader查询并缓存
+     *
+     * @param key    缓存键，需要包含搜索引擎、关键词的等价形式和分页位置
+     * @param loader 实际的查询方法
+     * @return 搜索结果
+     */
+    public SearchHits get(String key, Supplier<SearchHits> loader) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null && System.currentTimeMillis() - entry.loadedAt < ttlMs) {
+            hits.increment();
+            return entry.value;
+        }
+        misses.increment();
+        CompletableFuture<SearchHits> future = new CompletableFuture<>();
+        CompletableFuture<SearchHits> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            long startedAt = generation.get();
+            SearchHits value = loader.get();
+            if (value.getVideoIds().size() <= maxIds) {
+                synchronized (entries) {
+                    if (generation.get() == startedAt) {
+                        entries.put(key, new Entry(value, System.currentTimeMillis()));
+                    }
+                }
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    /**
+     * 清空全部缓存
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    /**
+     * 发现新增视频时清空缓存
+     */
+    @Scheduled(fixedDelayString = "${paper.search.result-cache.poll-interval-ms:5000}")
+    public void checkNewVideos() {
+        try {
+            String latest = contentMapper.getLatestCreateTime();
+            if (latestCreateTime != null && !Objects.equals(latest, latestCreateTime)) {
+                invalidateAll();
+            }
+            latestCreateTime = latest;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 命中次数
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * 未命中次数
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private record Entry(SearchHits value, long loadedAt) {
+    }
+}
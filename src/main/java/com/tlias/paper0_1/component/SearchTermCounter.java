@@ -0,0 +1,210 @@
+package com.tlias.paper0_1.component;
+
+import com.tlias.paper0_1.entity.KeywordCount;
+import com.tlias.paper0_1.entity.SearchRecord;
+import com.tlias.paper0_1.mapper.SearchRecordMapper;
+import com.tlias.paper0_1.tools.CountMinSketch;
+import com.tlias.paper0_1.tools.QueryNormalizer;
+import com.tlias.paper0_1.tools.SpaceSaving;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 搜索词计数
+ * 每次搜索只在内存中记一次，不访问数据库：
+ * 1. Count-Min Sketch 估算每个词的近期次数，配合 Space-Saving 维护近期次数最多的词，供热门搜索直接读取，
+ *    两者都定期减半，使热度随时间衰减
+ * 2. 另一个 Space-Saving 统计本写回周期内的次数，定时取出后用一条多行 INSERT ... ON DUPLICATE KEY UPDATE 累加到search_record表；
+ *    这里按用户输入的原始写法（只去掉首尾空白）计数，补全时再归一化合并，才能返回次数最多的那种写法
+ * 所有结构的大小都是固定的，内存占用与出现过多少种不同的搜索词无关；
+ * 写回周期内没能留在统计中的长尾词不写回，写回的是确定的下界（count - error），不会多记
+ */
+@Component
+public class SearchTermCounter {
+
+    /**
+     * 超过该长度的搜索词不计数
+     */
+    private static final int MAX_KEYWORD_LENGTH = 64;
+
+    @Autowired
+    private SearchRecordMapper searchRecordMapper;
+
+    /**
+     * Count-Min Sketch每行的计数器数量
+     */
+    @Value("${paper.search.terms.sketch-width:65536}")
+    private int sketchWidth;
+
+    /**
+     * 热门搜索词统计最多跟踪的词数
+     */
+    @Value("${paper.search.terms.trending-capacity:1000}")
+    private int trendingCapacity;
+
+    /**
+     * 每个写回周期最多跟踪的词数
+     */
+    @Value("${paper.search.terms.flush-capacity:10000}")
+    private int flushCapacity;
+
+    /**
+     * 单条INSERT语句最多包含的词数
+     */
+    @Value("${paper.search.terms.batch-size:500}")
+    private int batchSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private CountMinSketch sketch;
+
+    private SpaceSaving trending;
+
+    /**
+     * 本写回周期内各原始写法的次数
+     */
+    private SpaceSaving window;
+
+    @PostConstruct
+    public void init() {
+        sketch = new CountMinSketch(sketchWidth);
+        trending = new SpaceSaving(trendingCapacity);
+        window = new SpaceSaving(flushCapacity);
+    }
+
+    /**
+     * 记录一次搜索
+     *
+     * @param query 用户输入的搜索词
+     */
+    public void record(String query) {
+        String keyword = QueryNormalizer.normalize(query);
+        if (keyword.isEmpty() || keyword.length() > MAX_KEYWORD_LENGTH) {
+            return;
+        }
+        String spelling = query.trim();
+        lock.lock();
+        try {
+            long estimate = sketch.add(keyword, 1);
+            trending.offer(keyword, 1, estimate);
+            if (spelling.length() <= MAX_KEYWORD_LENGTH) {
+                window.offer(spelling, 1, Long.MAX_VALUE);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 近期搜索次数最多的词
+     *
+     * @param limit 最多返回的个数
+     * @return 按次数从多到少排列
+     */
+    public List<KeywordCount> trending(int limit) {
+        List<SpaceSaving.Counter> top;
+        lock.lock();
+        try {
+            top = trending.top(limit);
+        } finally {
+            lock.unlock();
+        }
+        List<KeywordCount> result = new ArrayList<>(top.size());
+        for (SpaceSaving.Counter counter : top) {
+            if (counter.count() > 0) {
+                result.add(new KeywordCount(counter.key(), counter.count()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 热度衰减：所有次数减半
+     */
+    @Scheduled(fixedDelayString = "${paper.search.terms.decay-interval-ms:3600000}",
+            initialDelayString = "${paper.search.terms.decay-interval-ms:3600000}")
+    public void decay() {
+        lock.lock();
+        try {
+            sketch.halve();
+            trending.halve();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 定时写回
+     */
+    @Scheduled(fixedDelayString = "${paper.search.terms.flush-interval-ms:10000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * 把本周期的次数累加到search_record表
+     * 写回失败时把尚未写入的部分放回下一个周期
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            SpaceSaving drained;
+            lock.lock();
+            try {
+                if (window.size() == 0) {
+                    return;
+                }
+                drained = window;
+                window = new SpaceSaving(flushCapacity);
+            } finally {
+                lock.unlock();
+            }
+            List<SearchRecord> records = new ArrayList<>(drained.size());
+            for (SpaceSaving.Counter counter : drained.counters()) {
+                long guaranteed = counter.count() - counter.error();
+                if (guaranteed > 0) {
+                    records.add(new SearchRecord(null, counter.key(), (int) Math.min(guaranteed, Integer.MAX_VALUE), null, null));
+                }
+            }
+            int written = 0;
+            try {
+                while (written < records.size()) {
+                    int end = Math.min(written + batchSize, records.size());
+                    searchRecordMapper.upsertKeywordCounts(records.subList(written, end));
+                    written = end;
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+                requeue(records.subList(written, records.size()));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void requeue(List<SearchRecord> records) {
+        lock.lock();
+        try {
+            for (SearchRecord record : records) {
+                window.offer(record.getKeyword(), record.getCount(), Long.MAX_VALUE);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
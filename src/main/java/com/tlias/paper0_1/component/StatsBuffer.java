@@ -0,0 +1,181 @@
+package com.tlias.paper0_1.component;
+
+import com.tlias.paper0_1.mapper.ContentMapper;
+import jakarta.annotation.PreDestroy;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * B站统计数据的写入缓冲
+ * 代理请求只把最新的统计快照放进内存，每个视频只保留最后一份，由后台定时批量写回：
+ * 使用MyBatis的BATCH执行器在一个事务中提交，同一视频在一个写回周期内无论被访问多少次都只写一次，
+ * 请求本身不再等待数据库
+ * 缓冲中的视频数量达到上限时立即触发写回，期间新视频的快照直接丢弃（下次访问会重新产生）
+ */
+@Component
+public class StatsBuffer {
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    private ContentCache contentCache;
+
+    @Autowired
+    private HotLeaderboard hotLeaderboard;
+
+    @Autowired
+    private TitleIndex titleIndex;
+
+    /**
+     * 缓冲中最多保留的视频数量
+     */
+    @Value("${paper.stats.max-entries:10000}")
+    private int maxEntries;
+
+    private final Map<String, Snapshot> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 因缓冲已满被丢弃的快照数
+     */
+    private final LongAdder dropped = new LongAdder();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * 已提交到写回线程、尚未开始执行的写回任务，最多只有一个
+     */
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "stats-buffer-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 记录视频的最新统计数据，覆盖尚未写回的旧快照
+     *
+     * @param videoId 视频ID
+     */
+    public void offer(String videoId, long likeCount, long favoriteCount, long shareCount, long coinCount, long viewCount) {
+        Snapshot snapshot = new Snapshot(videoId, likeCount, favoriteCount, shareCount, coinCount, viewCount);
+        if (pending.size() >= maxEntries && !pending.containsKey(videoId)) {
+            dropped.increment();
+            if (!flusher.isShutdown() && flushPending.compareAndSet(false, true)) {
+                try {
+                    flusher.execute(() -> {
+                        flushPending.set(false);
+                        flush();
+                    });
+                } catch (RejectedExecutionException e) {
+                    flushPending.set(false);
+                }
+            }
+            return;
+        }
+        pending.put(videoId, snapshot);
+    }
+
+    /**
+     * 定时写回
+     */
+    @Scheduled(fixedDelayString = "${paper.stats.flush-interval-ms:5000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * 把缓冲中的快照批量写回数据库
+     * 写回失败时把快照放回缓冲（已有更新的快照时以新的为准），下次再试
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<Snapshot> batch = new ArrayList<>(pending.size());
+            for (String videoId : pending.keySet()) {
+                Snapshot snapshot = pending.remove(videoId);
+                if (snapshot != null) {
+                    batch.add(snapshot);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<BatchResult> results;
+            try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH, false)) {
+                ContentMapper mapper = session.getMapper(ContentMapper.class);
+                for (Snapshot s : batch) {
+                    mapper.updateVideoStats(s.videoId, s.likeCount, s.favoriteCount, s.shareCount, s.coinCount, s.viewCount);
+                }
+                results = session.flushStatements();
+                session.commit();
+            } catch (Exception e) {
+                e.printStackTrace();
+                for (Snapshot s : batch) {
+                    pending.putIfAbsent(s.videoId, s);
+                }
+                return;
+            }
+            afterWrite(batch, results);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 因缓冲已满被丢弃的快照数
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        flush();
+    }
+
+    /**
+     * 对实际更新到的视频使详情缓存失效，并同步调整内存中的热门排行榜和标题索引的点赞分桶
+     * 同一条UPDATE语句的批次按加入顺序返回每条参数的影响行数
+     */
+    private void afterWrite(List<Snapshot> batch, List<BatchResult> results) {
+        int index = 0;
+        for (BatchResult result : results) {
+            for (int count : result.getUpdateCounts()) {
+                if (index >= batch.size()) {
+                    return;
+                }
+                Snapshot s = batch.get(index++);
+                // 部分驱动在批量模式下只返回SUCCESS_NO_INFO(-2)，此时按已更新处理
+                if (count > 0 || count == java.sql.Statement.SUCCESS_NO_INFO) {
+                    contentCache.invalidate(s.videoId);
+                    hotLeaderboard.onStatsUpdated(s.videoId, s.likeCount, s.viewCount);
+                    titleIndex.onStatsUpdated(s.videoId, s.likeCount);
+                }
+            }
+        }
+    }
+
+    private record Snapshot(String videoId, long likeCount, long favoriteCount, long shareCount,
+                            long coinCount, long viewCount) {
+    }
+}
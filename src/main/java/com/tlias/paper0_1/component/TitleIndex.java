@@ -0,0 +1,943 @@
+package com.tlias.paper0_1.component;
+
+import com.tlias.paper0_1.entity.Content;
+import com.tlias.paper0_1.entity.CounterDelta;
+import com.tlias.paper0_1.entity.FacetCount;
+import com.tlias.paper0_1.entity.SearchFilter;
+import com.tlias.paper0_1.entity.SearchHits;
+import com.tlias.paper0_1.mapper.ContentMapper;
+import com.tlias.paper0_1.tools.IntBitmap;
+import com.tlias.paper0_1.tools.QueryNormalizer;
+import jakarta.annotation.PostConstruct;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 视频标题的内存倒排索引
+ * 标题经QueryNormalizer归一化后按相邻两个字符切分（中文按字、英文数字按字母，跨空白的字符对不收录），
+ * 每个字符对对应一个文档位图；查询时取查询词全部字符对的位图求交集，再逐条用contains核对原标题，
+ * 因此结果与 title LIKE '%词%' 的子串语义一致（查询词中的%和_按普通字符处理），总数是精确值
+ * 不足两个字符的查询词没有可用的字符对，直接在内存中扫描全部标题
+ * 结果按create_time降序、video_id降序排列，与数据库分页查询的顺序一致
+ *
+ * 同时维护过滤和分面统计用的二级索引：video_type、status、source_keyword每个取值一个位图，
+ * create_time按月、liked_count按数量级分桶，每个桶一个位图；带过滤条件的查询先用位图求交/并得到结果集，
+ * 区间条件只对边界桶逐条核对，分面计数用位图交集的元素个数计算，不需要逐条统计
+ *
+ * 启动时和之后每隔rebuild-interval从数据库全量重建，期间每隔poll-interval按create_time拉取新增视频增量加入；
+ * 标题等字段的修改、视频删除，以及create_time早于已见到的最新时间才插入的视频，最长要到下一次全量重建
+ * （rebuild-interval，默认1小时）才会反映到索引中
+ * 首次构建完成前isReady返回false，由调用方回退到数据库查询
+ * 只在paper.search.engine为memory或启用了分面搜索时构建
+ *
+ * 标题和其他字段由读写锁隔离，点赞数分桶另用一把锁：点赞数的变化不阻塞文本查询，也不被文本查询阻塞
+ * 点赞数在CounterBuffer每批写回后一次性更新，B站统计数据在StatsBuffer写回后更新
+ * 全量重建在新对象上完成，期间点赞数、统计数据发生变化的视频记录下来，替换前在暂停计数写回的情况下从数据库重新读取，
+ * 重建期间的点赞和统计同步不会因为替换而丢失
+ */
+@Component
+public class TitleIndex {
+
+    /**
+     * 重建结束时每次重新读取的视频数量
+     */
+    private static final int RELOAD_BATCH_SIZE = 500;
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    private ContentMapper contentMapper;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private CounterBuffer counterBuffer;
+
+    /**
+     * 当前使用的搜索引擎，不是memory时不构建索引
+     */
+    @Value("${paper.search.engine:memory}")
+    private String searchEngine;
+
+    /**
+     * 是否启用分面搜索，启用时无论使用哪个搜索引擎都构建索引
+     */
+    @Value("${paper.search.facet.enabled:true}")
+    private boolean facetEnabled;
+
+    /**
+     * video_type、status、source_keyword每个维度最多返回的分面取值数，按命中数从多到少
+     */
+    @Value("${paper.search.facet.max-values:20}")
+    private int maxFacetValues;
+
+    /**
+     * 当前索引，首次构建完成前为null
+     */
+    private volatile Index index;
+
+    private final Object replayLock = new Object();
+
+    /**
+     * 全量重建期间点赞数、统计数据发生变化的视频，替换前重新读取；不在重建中时为null，由replayLock保护
+     */
+    private Set<String> touched;
+
+    @PostConstruct
+    public void init() {
+        counterBuffer.addFlushListener(this::onLikesFlushed);
+    }
+
+    /**
+     * 从数据库全量重建索引
+     * 读取期间变化的视频记入touched，读取完成后暂停计数写回，重新读取这些视频并替换索引
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${paper.search.index.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        if (!"memory".equals(searchEngine) && !facetEnabled) {
+            return;
+        }
+        synchronized (replayLock) {
+            touched = new HashSet<>();
+        }
+        try {
+            Index built = new Index();
+            try (SqlSession session = sqlSessionFactory.openSession();
+                 Cursor<Content> rows = session.getMapper(ContentMapper.class).streamTitleIndexRows()) {
+                for (Content row : rows) {
+                    built.upsert(row);
+                }
+            }
+            counterBuffer.withoutFlushing(() -> {
+                swap(built);
+                return null;
+            });
+            searchResultCache.invalidateAll();
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            synchronized (replayLock) {
+                touched = null;
+            }
+        }
+    }
+
+    /**
+     * 把上次见到的最新创建时间之后（含同一时刻）新增的视频加入索引
+     */
+    @Scheduled(initialDelayString = "${paper.search.index.poll-interval-ms:10000}",
+            fixedDelayString = "${paper.search.index.poll-interval-ms:10000}")
+    public synchronized void pollNewVideos() {
+        Index current = index;
+        if (current == null || current.maxCreateTime == null) {
+            return;
+        }
+        try {
+            boolean changed = false;
+            for (Content row : contentMapper.getTitleIndexRowsSince(current.maxCreateTime)) {
+                changed |= current.upsert(row);
+            }
+            // 索引内容变化后，缓存的搜索结果可能已经过时
+            if (changed) {
+                searchResultCache.invalidateAll();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 同步了视频的最新统计数据
+     *
+     * @param videoId    视频ID
+     * @param likedCount 最新点赞数
+     */
+    public void onStatsUpdated(String videoId, long likedCount) {
+        Index current = target(videoId);
+        if (current != null) {
+            current.setLikes(videoId, likedCount);
+        }
+    }
+
+    /**
+     * 一批点赞数增量写回了数据库，在写回线程中调用
+     */
+    void onLikesFlushed(List<CounterDelta> batch) {
+        Index current;
+        synchronized (replayLock) {
+            if (touched != null) {
+                for (CounterDelta delta : batch) {
+                    if (delta.getLiked_delta() != 0) {
+                        touched.add(delta.getVideo_id());
+                    }
+                }
+            }
+            current = index;
+        }
+        if (current != null) {
+            current.addLikes(batch);
+        }
+    }
+
+    /**
+     * 索引是否已经可用
+     */
+    public boolean isReady() {
+        return index != null;
+    }
+
+    /**
+     * 按页码位置查询标题包含关键词的视频
+     *
+     * @param title  标题关键词
+     * @param offset 跳过的条数
+     * @param limit  最多返回的条数
+     * @return 命中结果，total为精确总数；索引尚未构建时返回null
+     */
+    public SearchHits search(String title, int offset, int limit) {
+        Index current = index;
+        return current == null ? null : current.search(QueryNormalizer.normalize(title), null, null, null, offset, limit, maxFacetValues);
+    }
+
+    /**
+     * 按游标查询标题包含关键词的视频，只返回排在(cursorTime, cursorId)之后的结果
+     *
+     * @param title      标题关键词
+     * @param cursorTime 上一页最后一条的create_time，为null时从第一条开始
+     * @param cursorId   上一页最后一条的video_id
+     * @param limit      最多返回的条数
+     * @return 命中结果，total为全部命中数（不只是游标之后的）；索引尚未构建时返回null
+     */
+    public SearchHits searchAfter(String title, String cursorTime, String cursorId, int limit) {
+        Index current = index;
+        return current == null ? null : current.search(QueryNormalizer.normalize(title), null, cursorTime, cursorId, 0, limit, maxFacetValues);
+    }
+
+    /**
+     * 按页码位置查询标题包含关键词且满足过滤条件的视频，同时统计各维度的分面计数
+     *
+     * @param title  标题关键词
+     * @param filter 过滤条件
+     * @param offset 跳过的条数
+     * @param limit  最多返回的条数
+     * @return 命中结果，total为满足过滤条件的精确总数，facets为分面计数；索引尚未构建时返回null
+     */
+    public SearchHits searchFiltered(String title, SearchFilter filter, int offset, int limit) {
+        Index current = index;
+        return current == null ? null
+                : current.search(QueryNormalizer.normalize(title), filter, null, null, offset, limit, maxFacetValues);
+    }
+
+    /**
+     * 按游标查询标题包含关键词且满足过滤条件的视频，同时统计各维度的分面计数
+     *
+     * @param title      标题关键词
+     * @param filter     过滤条件
+     * @param cursorTime 上一页最后一条的create_time，为null时从第一条开始
+     * @param cursorId   上一页最后一条的video_id
+     * @param limit      最多返回的条数
+     * @return 命中结果，total和facets不受游标影响；索引尚未构建时返回null
+     */
+    public SearchHits searchFilteredAfter(String title, SearchFilter filter, String cursorTime, String cursorId, int limit) {
+        Index current = index;
+        return current == null ? null
+                : current.search(QueryNormalizer.normalize(title), filter, cursorTime, cursorId, 0, limit, maxFacetValues);
+    }
+
+    /**
+     * 取得当前索引，重建期间同时把视频记入touched
+     */
+    private Index target(String videoId) {
+        synchronized (replayLock) {
+            if (touched != null) {
+                touched.add(videoId);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * 在暂停计数写回的情况下替换索引：反复取出重建期间变化的视频重新读取，直到没有新的变化再替换
+     * 替换与记录变化在同一把锁内，替换之前的变化都已补上，之后的变化直接作用于新索引
+     */
+    private void swap(Index built) {
+        while (true) {
+            List<String> changed;
+            synchronized (replayLock) {
+                if (touched.isEmpty()) {
+                    index = built;
+                    return;
+                }
+                changed = new ArrayList<>(touched);
+                touched.clear();
+            }
+            reload(built, changed);
+        }
+    }
+
+    /**
+     * 从数据库重新读取视频并更新索引，不存在的视频从索引中移除
+     */
+    private void reload(Index target, List<String> videoIds) {
+        for (int from = 0; from < videoIds.size(); from += RELOAD_BATCH_SIZE) {
+            List<String> chunk = videoIds.subList(from, Math.min(from + RELOAD_BATCH_SIZE, videoIds.size()));
+            Set<String> missing = new HashSet<>(chunk);
+            for (Content row : contentMapper.getContentsByIds(chunk)) {
+                target.upsert(row);
+                missing.remove(row.getVideo_id());
+            }
+            for (String videoId : missing) {
+                target.remove(videoId);
+            }
+        }
+    }
+
+    /**
+     * 索引数据，文档编号从0开始连续分配
+     */
+    private static final class Index {
+
+        private static final String[] DIMENSIONS = {"video_type", "status", "source_keyword", "create_time", "liked_count"};
+
+        private static final int TYPE = 0;
+
+        private static final int STATUS = 1;
+
+        private static final int SOURCE = 2;
+
+        private static final int TIME = 3;
+
+        private static final int LIKES = 4;
+
+        /**
+         * 点赞数分桶的下界，第i个桶为[LIKE_BOUNDS[i], LIKE_BOUNDS[i+1])
+         */
+        private static final long[] LIKE_BOUNDS = {0, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+        private static final String[] LIKE_LABELS = {"0-9", "10-99", "100-999", "1000-9999", "10000-99999", "100000-999999", "1000000+"};
+
+        /**
+         * 保护除点赞数以外的全部字段
+         */
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        /**
+         * 保护likes和byLikes；需要同时持有两把锁时先取lock
+         */
+        private final ReentrantReadWriteLock likesLock = new ReentrantReadWriteLock();
+
+        private final Map<String, Integer> docOf = new HashMap<>();
+
+        private final Map<Integer, IntBitmap> postings = new HashMap<>();
+
+        private final IntBitmap live = new IntBitmap();
+
+        private final Map<String, IntBitmap> byType = new HashMap<>();
+
+        private final Map<String, IntBitmap> byStatus = new HashMap<>();
+
+        private final Map<String, IntBitmap> bySource = new HashMap<>();
+
+        /**
+         * 按create_time的年月（前7个字符）分桶
+         */
+        private final TreeMap<String, IntBitmap> byMonth = new TreeMap<>();
+
+        private final IntBitmap[] byLikes = new IntBitmap[LIKE_BOUNDS.length];
+
+        private String[] ids = new String[1024];
+
+        private String[] titles = new String[1024];
+
+        private String[] times = new String[1024];
+
+        private String[] types = new String[1024];
+
+        private String[] statuses = new String[1024];
+
+        private String[] sources = new String[1024];
+
+        private long[] likes = new long[1024];
+
+        private int size;
+
+        private volatile String maxCreateTime;
+
+        Index() {
+            for (int i = 0; i < byLikes.length; i++) {
+                byLikes[i] = new IntBitmap();
+            }
+        }
+
+        /**
+         * 加入或更新一个视频，索引字段都未变化时不做任何修改
+         *
+         * @return 索引是否发生了变化
+         */
+        boolean upsert(Content row) {
+            if (row.getVideo_id() == null) {
+                return false;
+            }
+            String title = QueryNormalizer.normalize(row.getTitle());
+            String time = row.getCreate_time();
+            lock.writeLock().lock();
+            likesLock.writeLock().lock();
+            try {
+                Integer existing = docOf.get(row.getVideo_id());
+                int doc;
+                if (existing != null) {
+                    doc = existing;
+                    if (title.equals(titles[doc]) && Objects.equals(time, times[doc])
+                            && Objects.equals(row.getVideo_type(), types[doc]) && Objects.equals(row.getStatus(), statuses[doc])
+                            && Objects.equals(row.getSource_keyword(), sources[doc]) && row.getLiked_count() == likes[doc]) {
+                        return false;
+                    }
+                    if (!title.equals(titles[doc])) {
+                        removeGrams(doc, titles[doc]);
+                        addGrams(doc, title);
+                    }
+                    removeFacets(doc);
+                } else {
+                    doc = size++;
+                    if (doc == ids.length) {
+                        grow(doc * 2);
+                    }
+                    docOf.put(row.getVideo_id(), doc);
+                    ids[doc] = row.getVideo_id();
+                    live.add(doc);
+                    addGrams(doc, title);
+                }
+                titles[doc] = title;
+                times[doc] = time;
+                types[doc] = row.getVideo_type();
+                statuses[doc] = row.getStatus();
+                sources[doc] = row.getSource_keyword();
+                likes[doc] = row.getLiked_count();
+                addFacets(doc);
+                if (time != null && (maxCreateTime == null || time.compareTo(maxCreateTime) > 0)) {
+                    maxCreateTime = time;
+                }
+                return true;
+            } finally {
+                likesLock.writeLock().unlock();
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * 移除一个视频，文档编号不再复用，下次全量重建时回收
+         *
+         * @return 视频是否在索引中
+         */
+        boolean remove(String videoId) {
+            lock.writeLock().lock();
+            likesLock.writeLock().lock();
+            try {
+                Integer doc = docOf.remove(videoId);
+                if (doc == null) {
+                    return false;
+                }
+                live.remove(doc);
+                removeGrams(doc, titles[doc]);
+                removeFacets(doc);
+                titles[doc] = null;
+                return true;
+            } finally {
+                likesLock.writeLock().unlock();
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * 把点赞数设为最新值
+         */
+        void setLikes(String videoId, long likedCount) {
+            lock.readLock().lock();
+            try {
+                Integer doc = docOf.get(videoId);
+                if (doc == null) {
+                    return;
+                }
+                likesLock.writeLock().lock();
+                try {
+                    moveLikes(doc, likedCount);
+                } finally {
+                    likesLock.writeLock().unlock();
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * 累加一批点赞数增量
+         * 文本部分只持有读锁（查找文档编号），与查询互不阻塞
+         */
+        void addLikes(List<CounterDelta> batch) {
+            lock.readLock().lock();
+            try {
+                likesLock.writeLock().lock();
+                try {
+                    for (CounterDelta delta : batch) {
+                        Integer doc = docOf.get(delta.getVideo_id());
+                        if (doc != null && delta.getLiked_delta() != 0) {
+                            moveLikes(doc, likes[doc] + delta.getLiked_delta());
+                        }
+                    }
+                } finally {
+                    likesLock.writeLock().unlock();
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * 更新点赞数并调整所在的分桶，调用方持有likesLock的写锁
+         */
+        private void moveLikes(int doc, long updated) {
+            if (updated != likes[doc]) {
+                byLikes[likeBucketOf(likes[doc])].remove(doc);
+                likes[doc] = updated;
+                byLikes[likeBucketOf(updated)].add(doc);
+            }
+        }
+
+        /**
+         * 查询并分页，filter不为null时先按过滤条件缩小结果集并统计分面
+         */
+        SearchHits search(String query, SearchFilter filter, String cursorTime, String cursorId, int offset, int limit,
+                          int maxFacetValues) {
+            lock.readLock().lock();
+            try {
+                int[] matched = match(query);
+                Map<String, List<FacetCount>> facets = null;
+                if (filter != null) {
+                    IntBitmap text = bitmapOf(matched);
+                    // 点赞数条件和分面需要读取点赞分桶，只在这一段持有likesLock
+                    likesLock.readLock().lock();
+                    try {
+                        IntBitmap[] conditions = {
+                                valueCondition(byType, filter.getVideoTypes()),
+                                valueCondition(byStatus, filter.getStatuses()),
+                                valueCondition(bySource, filter.getSourceKeywords()),
+                                timeCondition(filter.getCreatedFrom(), filter.getCreatedTo()),
+                                likesCondition(filter.getMinLikes())
+                        };
+                        IntBitmap filtered = intersect(text, conditions, -1);
+                        facets = facets(text, conditions, filtered, maxFacetValues);
+                        matched = arrayOf(filtered);
+                    } finally {
+                        likesLock.readLock().unlock();
+                    }
+                }
+                long total = matched.length;
+                int count = matched.length;
+                if (cursorTime != null) {
+                    count = 0;
+                    for (int doc : matched) {
+                        if (after(doc, cursorTime, cursorId)) {
+                            matched[count++] = doc;
+                        }
+                    }
+                }
+                int[] ordered = top(matched, count, (int) Math.min((long) offset + limit, Integer.MAX_VALUE));
+                List<String> page = new ArrayList<>(Math.max(0, Math.min(limit, ordered.length - offset)));
+                for (int i = offset; i < ordered.length; i++) {
+                    page.add(ids[ordered[i]]);
+                }
+                return new SearchHits(page, total, facets);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * 找出标题包含查询词的全部文档
+         */
+        private int[] match(String query) {
+            List<IntBitmap> lists = new ArrayList<>();
+            for (int i = 0; i + 1 < query.length(); i++) {
+                char first = query.charAt(i);
+                char second = query.charAt(i + 1);
+                if (Character.isWhitespace(first) || Character.isWhitespace(second)) {
+                    continue;
+                }
+                IntBitmap posting = postings.get(gramOf(first, second));
+                if (posting == null) {
+                    return new int[0];
+                }
+                if (!lists.contains(posting)) {
+                    lists.add(posting);
+                }
+            }
+            IntBitmap driver = live;
+            if (!lists.isEmpty()) {
+                lists.sort((a, b) -> Long.compare(a.cardinality(), b.cardinality()));
+                driver = lists.get(0);
+            }
+            int[] result = new int[(int) driver.cardinality()];
+            int[] count = {0};
+            driver.forEach(doc -> {
+                for (int i = 1; i < lists.size(); i++) {
+                    if (!lists.get(i).contains(doc)) {
+                        return;
+                    }
+                }
+                if (titles[doc].contains(query)) {
+                    result[count[0]++] = doc;
+                }
+            });
+            return Arrays.copyOf(result, count[0]);
+        }
+
+        /**
+         * 同一维度的多个取值求并集，没有条件时返回null
+         */
+        private IntBitmap valueCondition(Map<String, IntBitmap> values, List<String> selected) {
+            if (selected == null || selected.isEmpty()) {
+                return null;
+            }
+            List<IntBitmap> bitmaps = new ArrayList<>();
+            for (String value : selected) {
+                IntBitmap bitmap = values.get(value);
+                if (bitmap != null) {
+                    bitmaps.add(bitmap);
+                }
+            }
+            return union(bitmaps);
+        }
+
+        /**
+         * 创建时间在[from, to)内的文档
+         * 整月都落在区间内的桶直接取并集，与区间边界相交的桶逐条核对；没有create_time的文档不满足时间条件
+         */
+        private IntBitmap timeCondition(String from, String to) {
+            if (from == null && to == null) {
+                return null;
+            }
+            List<IntBitmap> bitmaps = new ArrayList<>();
+            IntBitmap partial = new IntBitmap();
+            for (Map.Entry<String, IntBitmap> bucket : byMonth.entrySet()) {
+                String month = bucket.getKey();
+                // 桶内所有时间都以month开头，据此判断整桶在区间外、区间内还是跨越边界
+                boolean before = from != null && from.compareTo(month) > 0 && !from.startsWith(month);
+                boolean after = to != null && to.compareTo(month) <= 0;
+                if (before || after) {
+                    continue;
+                }
+                boolean inside = (from == null || from.compareTo(month) <= 0)
+                        && (to == null || (to.compareTo(month) > 0 && !to.startsWith(month)));
+                if (inside) {
+                    bitmaps.add(bucket.getValue());
+                } else {
+                    bucket.getValue().forEach(doc -> {
+                        String time = times[doc];
+                        if ((from == null || time.compareTo(from) >= 0) && (to == null || time.compareTo(to) < 0)) {
+                            partial.add(doc);
+                        }
+                    });
+                }
+            }
+            bitmaps.add(partial);
+            return union(bitmaps);
+        }
+
+        /**
+         * 点赞数不少于min的文档，下界不小于min的桶直接取并集，包含min的桶逐条核对
+         */
+        private IntBitmap likesCondition(Long min) {
+            if (min == null) {
+                return null;
+            }
+            List<IntBitmap> bitmaps = new ArrayList<>();
+            IntBitmap partial = new IntBitmap();
+            for (int b = 0; b < byLikes.length; b++) {
+                long upper = b + 1 < LIKE_BOUNDS.length ? LIKE_BOUNDS[b + 1] : Long.MAX_VALUE;
+                if (upper <= min) {
+                    continue;
+                }
+                // 第0个桶还包含点赞数为负的异常数据，始终逐条核对
+                if (b > 0 && LIKE_BOUNDS[b] >= min) {
+                    bitmaps.add(byLikes[b]);
+                } else {
+                    byLikes[b].forEach(doc -> {
+                        if (likes[doc] >= min) {
+                            partial.add(doc);
+                        }
+                    });
+                }
+            }
+            bitmaps.add(partial);
+            return union(bitmaps);
+        }
+
+        /**
+         * 文本命中与各维度条件的交集，skip指定的维度不参与
+         */
+        private IntBitmap intersect(IntBitmap text, IntBitmap[] conditions, int skip) {
+            IntBitmap result = text;
+            for (int d = 0; d < conditions.length; d++) {
+                if (d != skip && conditions[d] != null) {
+                    result = result.and(conditions[d]);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * 统计各维度的分面计数
+         * 某一维度的计数基于“文本命中且满足其他维度条件”的集合，本维度没有条件时就是最终结果集
+         */
+        private Map<String, List<FacetCount>> facets(IntBitmap text, IntBitmap[] conditions, IntBitmap filtered,
+                                                     int maxFacetValues) {
+            Map<String, List<FacetCount>> facets = new LinkedHashMap<>();
+            for (int d = 0; d < DIMENSIONS.length; d++) {
+                IntBitmap base = conditions[d] == null ? filtered : intersect(text, conditions, d);
+                List<FacetCount> counts = new ArrayList<>();
+                switch (d) {
+                    case TYPE, STATUS, SOURCE -> {
+                        Map<String, IntBitmap> values = d == TYPE ? byType : d == STATUS ? byStatus : bySource;
+                        for (Map.Entry<String, IntBitmap> value : values.entrySet()) {
+                            long count = base.andCardinality(value.getValue());
+                            if (count > 0) {
+                                counts.add(new FacetCount(value.getKey(), count));
+                            }
+                        }
+                        counts.sort((a, b) -> a.getCount().equals(b.getCount())
+                                ? a.getValue().compareTo(b.getValue()) : Long.compare(b.getCount(), a.getCount()));
+                        if (counts.size() > maxFacetValues) {
+                            counts = new ArrayList<>(counts.subList(0, maxFacetValues));
+                        }
+                    }
+                    case TIME -> {
+                        for (Map.Entry<String, IntBitmap> month : byMonth.descendingMap().entrySet()) {
+                            long count = base.andCardinality(month.getValue());
+                            if (count > 0) {
+                                counts.add(new FacetCount(month.getKey(), count));
+                            }
+                        }
+                    }
+                    default -> {
+                        for (int b = 0; b < byLikes.length; b++) {
+                            long count = base.andCardinality(byLikes[b]);
+                            if (count > 0) {
+                                counts.add(new FacetCount(LIKE_LABELS[b], count));
+                            }
+                        }
+                    }
+                }
+                facets.put(DIMENSIONS[d], counts);
+            }
+            return facets;
+        }
+
+        /**
+         * 多个位图两两合并求并集，避免逐个累加时反复复制越来越大的中间结果
+         */
+        private static IntBitmap union(List<IntBitmap> bitmaps) {
+            if (bitmaps.isEmpty()) {
+                return new IntBitmap();
+            }
+            while (bitmaps.size() > 1) {
+                List<IntBitmap> merged = new ArrayList<>((bitmaps.size() + 1) / 2);
+                for (int i = 0; i + 1 < bitmaps.size(); i += 2) {
+                    merged.add(bitmaps.get(i).or(bitmaps.get(i + 1)));
+                }
+                if (bitmaps.size() % 2 == 1) {
+                    merged.add(bitmaps.get(bitmaps.size() - 1));
+                }
+                bitmaps = merged;
+            }
+            return bitmaps.get(0);
+        }
+
+        private static IntBitmap bitmapOf(int[] docs) {
+            IntBitmap bitmap = new IntBitmap();
+            for (int doc : docs) {
+                bitmap.add(doc);
+            }
+            return bitmap;
+        }
+
+        private static int[] arrayOf(IntBitmap bitmap) {
+            int[] docs = new int[(int) bitmap.cardinality()];
+            int[] count = {0};
+            bitmap.forEach(doc -> docs[count[0]++] = doc);
+            return docs;
+        }
+
+        /**
+         * 按排序规则取前k个文档；k不小于文档数时直接全量排序
+         */
+        private int[] top(int[] docs, int count, int k) {
+            if (k >= count) {
+                Integer[] boxed = new Integer[count];
+                for (int i = 0; i < count; i++) {
+                    boxed[i] = docs[i];
+                }
+                Arrays.sort(boxed, this::compare);
+                int[] sorted = new int[count];
+                for (int i = 0; i < count; i++) {
+                    sorted[i] = boxed[i];
+                }
+                return sorted;
+            }
+            // 小顶堆保留当前最靠前的k个，堆顶是其中排在最后的
+            PriorityQueue<Integer> heap = new PriorityQueue<>(k + 1, (a, b) -> compare(b, a));
+            for (int i = 0; i < count; i++) {
+                heap.offer(docs[i]);
+                if (heap.size() > k) {
+                    heap.poll();
+                }
+            }
+            int[] sorted = new int[heap.size()];
+            for (int i = sorted.length - 1; i >= 0; i--) {
+                sorted[i] = heap.poll();
+            }
+            return sorted;
+        }
+
+        /**
+         * 排序规则：create_time降序，相同时video_id降序；没有创建时间的排在最后
+         */
+        private int compare(int a, int b) {
+            String ta = times[a];
+            String tb = times[b];
+            if (!Objects.equals(ta, tb)) {
+                if (ta == null) {
+                    return 1;
+                }
+                if (tb == null) {
+                    return -1;
+                }
+                return tb.compareTo(ta);
+            }
+            return ids[b].compareTo(ids[a]);
+        }
+
+        /**
+         * 文档是否排在游标之后，与数据库游标查询的条件一致
+         */
+        private boolean after(int doc, String cursorTime, String cursorId) {
+            String time = times[doc];
+            if (time == null) {
+                return false;
+            }
+            int cmp = time.compareTo(cursorTime);
+            return cmp < 0 || (cmp == 0 && ids[doc].compareTo(cursorId) < 0);
+        }
+
+        private void addGrams(int doc, String title) {
+            for (int i = 0; i + 1 < title.length(); i++) {
+                char first = title.charAt(i);
+                char second = title.charAt(i + 1);
+                if (!Character.isWhitespace(first) && !Character.isWhitespace(second)) {
+                    postings.computeIfAbsent(gramOf(first, second), k -> new IntBitmap()).add(doc);
+                }
+            }
+        }
+
+        private void removeGrams(int doc, String title) {
+            for (int i = 0; i + 1 < title.length(); i++) {
+                char first = title.charAt(i);
+                char second = title.charAt(i + 1);
+                if (Character.isWhitespace(first) || Character.isWhitespace(second)) {
+                    continue;
+                }
+                int gram = gramOf(first, second);
+                IntBitmap posting = postings.get(gram);
+                if (posting != null) {
+                    posting.remove(doc);
+                    if (posting.cardinality() == 0) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+        }
+
+        private void addFacets(int doc) {
+            addTo(byType, types[doc], doc);
+            addTo(byStatus, statuses[doc], doc);
+            addTo(bySource, sources[doc], doc);
+            addTo(byMonth, monthOf(times[doc]), doc);
+            byLikes[likeBucketOf(likes[doc])].add(doc);
+        }
+
+        private void removeFacets(int doc) {
+            removeFrom(byType, types[doc], doc);
+            removeFrom(byStatus, statuses[doc], doc);
+            removeFrom(bySource, sources[doc], doc);
+            removeFrom(byMonth, monthOf(times[doc]), doc);
+            byLikes[likeBucketOf(likes[doc])].remove(doc);
+        }
+
+        private static void addTo(Map<String, IntBitmap> values, String value, int doc) {
+            if (value != null) {
+                values.computeIfAbsent(value, k -> new IntBitmap()).add(doc);
+            }
+        }
+
+        private static void removeFrom(Map<String, IntBitmap> values, String value, int doc) {
+            if (value == null) {
+                return;
+            }
+            IntBitmap bitmap = values.get(value);
+            if (bitmap != null) {
+                bitmap.remove(doc);
+                if (bitmap.cardinality() == 0) {
+                    values.remove(value);
+                }
+            }
+        }
+
+        private static String monthOf(String time) {
+            if (time == null) {
+                return null;
+            }
+            return time.length() > 7 ? time.substring(0, 7) : time;
+        }
+
+        private static int likeBucketOf(long likedCount) {
+            int bucket = 0;
+            while (bucket + 1 < LIKE_BOUNDS.length && likedCount >= LIKE_BOUNDS[bucket + 1]) {
+                bucket++;
+            }
+            return bucket;
+        }
+
+        private void grow(int capacity) {
+            ids = Arrays.copyOf(ids, capacity);
+            titles = Arrays.copyOf(titles, capacity);
+            times = Arrays.copyOf(times, capacity);
+            types = Arrays.copyOf(types, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            sources = Arrays.copyOf(sources, capacity);
+            likes = Arrays.copyOf(likes, capacity);
+        }
+
+        private static int gramOf(char first, char second) {
+            return (first << 16) | second;
+        }
+    }
+}
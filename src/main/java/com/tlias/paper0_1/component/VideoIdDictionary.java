@@ -0,0 +1,38 @@
+package com.tlias.paper0_1.component;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 视频ID字典
+ * 把字符串形式的视频ID映射为从0开始连续分配的整数，供位图等紧凑结构使用
+ * 编号只在本进程内有效，不持久化
+ */
+@Component
+public class VideoIdDictionary {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * 获取视频ID对应的整数编号，不存在时分配新编号
+     */
+    public int intern(String videoId) {
+        Integer id = ids.get(videoId);
+        return id != null ? id : ids.computeIfAbsent(videoId, k -> next.getAndIncrement());
+    }
+
+    /**
+     * 获取视频ID对应的整数编号，不分配新编号
+     *
+     * @return 编号；尚未分配时返回-1
+     */
+    public int lookup(String videoId) {
+        Integer id = ids.get(videoId);
+        return id == null ? -1 : id;
+    }
+}
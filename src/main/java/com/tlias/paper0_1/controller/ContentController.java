@@ -1,13 +1,28 @@
 package com.tlias.paper0_1.controller;
 
+import com.tlias.paper0_1.component.ContentCache;
+import com.tlias.paper0_1.entity.CacheStats;
 import com.tlias.paper0_1.entity.Content;
+import com.tlias.paper0_1.entity.ContentCard;
 import com.tlias.paper0_1.entity.Content_Result;
+import com.tlias.paper0_1.entity.KeywordCount;
 import com.tlias.paper0_1.entity.PageResult;
+import com.tlias.paper0_1.entity.SearchFilter;
 import com.tlias.paper0_1.service.ContentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
 import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * 内容控制器类
@@ -27,6 +42,37 @@ public class ContentController {
     @Autowired
     private ContentService contentService;
 
+    /**
+     * 视频详情缓存，用于暴露命中统计
+     */
+    @Autowired
+    private ContentCache contentCache;
+
+    private static final String NDJSON = "application/x-ndjson;charset=UTF-8";
+
+    private static final int STREAM_FLUSH_ROWS = 100;
+
+    /**
+     * 分页接口单页最多返回的条数
+     */
+    private static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * 创建时间过滤条件允许的写法：年、年月、年月日、到分钟或到秒，各部分补零，与create_time的格式一致
+     */
+    private static final Pattern TIME_BOUND = Pattern.compile("\\d{4}(-\\d{2}(-\\d{2}( \\d{2}:\\d{2}(:\\d{2})?)?)?)?");
+
+    private static final String FULL_TIME_TEMPLATE = "0000-01-01 00:00:00";
+
+    private static final DateTimeFormatter FULL_TIME = DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm:ss")
+            .withResolverStyle(ResolverStyle.STRICT);
+
+    /**
+     * Spring管理的JSON序列化器，流式导出的每一行与其他接口的响应使用相同的序列化配置
+     */
+    @Autowired
+    private JsonMapper jsonMapper;
+
     /**
      * 获取所有视频内容信息
      * HTTP GET请求 /contents
@@ -39,6 +85,35 @@ public class ContentController {
         return contentService.getAllContents();
     }
 
+    /**
+     * 流式导出所有视频内容
+     * HTTP GET请求 /contents/stream
+     * 以NDJSON格式（每行一个JSON对象）边查询边写出，服务端内存占用不随数据量增长，
+     * 客户端可以在第一批数据到达时就开始处理
+     * 
+     * @return 逐行写出视频内容的响应体
+     */
+    @GetMapping(value = "/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAllContents() {
+        StreamingResponseBody body = out -> {
+            int[] written = {0};
+            contentService.streamAllContents(content -> {
+                try {
+                    out.write(jsonMapper.writeValueAsBytes(content));
+                    out.write('\n');
+                    // 定期刷新，让数据尽早到达客户端
+                    if (++written[0] % STREAM_FLUSH_ROWS == 0) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
     /**
      * 根据ID获取单个视频内容信息
      * HTTP GET请求 /contents/{id}
@@ -56,16 +131,32 @@ public class ContentController {
      * 分页获取视频内容
      * HTTP GET请求 /contents/page
      * 支持分页查询视频内容，便于前端实现懒加载功能
+     * 携带cursor参数时使用游标分页（cursor为空字符串表示第一页），此时忽略currentPage
+     * total默认来自总数缓存（totalExact为false），需要精确总数时传exactTotal=true
+     * view=card时只返回卡片字段（ContentCard），不含描述等大字段
      * 
      * @param currentPage 当前页码，默认为1
-     * @param pageSize 每页大小，默认为10
+     * @param pageSize 每页大小，默认为10，取值1~100
+     * @param cursor 上一页返回的nextCursor，可选
+     * @param exactTotal 是否实时统计精确总数，默认为false
+     * @param view 返回字段范围，full（默认）或card
      * @return 分页结果，包含当前页数据和分页信息
      */
     @GetMapping("/page")
-    public PageResult<Content> getContentByPage(
+    public PageResult<? extends ContentCard> getContentByPage(
             @RequestParam(defaultValue = "1") Integer currentPage,
-            @RequestParam(defaultValue = "10") Integer pageSize) {
-        return contentService.getContentByPage(currentPage, pageSize);
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean exactTotal,
+            @RequestParam(defaultValue = "full") String view) {
+        checkPaging(currentPage, pageSize);
+        boolean card = "card".equalsIgnoreCase(view);
+        if (cursor != null) {
+            return card ? contentService.getContentCardByCursor(cursor, pageSize)
+                    : contentService.getContentByCursor(cursor, pageSize);
+        }
+        return card ? contentService.getContentCardByPage(currentPage, pageSize, exactTotal)
+                : contentService.getContentByPage(currentPage, pageSize, exactTotal);
     }
 
     /**
@@ -86,17 +177,84 @@ public class ContentController {
      * HTTP GET请求 /contents/search/page
      * 支持根据标题关键词进行模糊查询并分页返回结果
      * 
+     * 携带cursor参数时使用游标分页（cursor为空字符串表示第一页），此时忽略currentPage
+     * total默认来自总数缓存（totalExact为false），需要精确总数时传exactTotal=true
+     * 
+     * 携带任一过滤参数或facets=true时按条件过滤，并在结果中附带各维度的分面计数（facets），total为精确值
+     * 同一参数的多个取值（逗号分隔或重复传参）之间为“或”，不同参数之间为“且”
+     * 
      * @param title 标题关键词
      * @param currentPage 当前页码，默认为1
-     * @param pageSize 每页大小，默认为10
-     * @return 分页结果，包含当前页数据和分页信息
+     * @param pageSize 每页大小，默认为10，取值1~100
+     * @param cursor 上一页返回的nextCursor，可选
+     * @param exactTotal 是否实时统计精确总数，默认为false
+     * @param videoType 视频类型，可选
+     * @param status 视频状态，可选
+     * @param sourceKeyword 采集关键词，可选
+     * @param createdFrom 创建时间下限（包含），可选，格式为yyyy、yyyy-MM、yyyy-MM-dd、yyyy-MM-dd HH:mm或yyyy-MM-dd HH:mm:ss
+     * @param createdTo 创建时间上限（不包含），可选，格式同createdFrom
+     * @param minLikes 最少点赞数，可选
+     * @param facets 没有过滤条件时是否也返回分面计数，默认为false
+     * @return 分页结果，包含当前页数据和分页信息；过滤查询时为带分面计数的分页结果
      */
     @GetMapping("/search/page")
     public PageResult<Content> getContentByTitleAndPage(
             @RequestParam String title,
             @RequestParam(defaultValue = "1") Integer currentPage,
-            @RequestParam(defaultValue = "10") Integer pageSize) {
-        return contentService.getContentByTitleAndPage(title, currentPage, pageSize);
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean exactTotal,
+            @RequestParam(required = false) List<String> videoType,
+            @RequestParam(required = false) List<String> status,
+            @RequestParam(required = false) List<String> sourceKeyword,
+            @RequestParam(required = false) String createdFrom,
+            @RequestParam(required = false) String createdTo,
+            @RequestParam(required = false) Long minLikes,
+            @RequestParam(defaultValue = "false") boolean facets) {
+        checkPaging(currentPage, pageSize);
+        SearchFilter filter = new SearchFilter();
+        filter.setVideoTypes(videoType);
+        filter.setStatuses(status);
+        filter.setSourceKeywords(sourceKeyword);
+        filter.setCreatedFrom(checkTimeBound("createdFrom", createdFrom));
+        filter.setCreatedTo(checkTimeBound("createdTo", createdTo));
+        filter.setMinLikes(minLikes);
+        if (facets || filter.hasConditions()) {
+            return contentService.getContentByTitleAndFilter(title, filter, cursor, currentPage, pageSize);
+        }
+        if (cursor != null) {
+            return contentService.getContentByTitleAndCursor(title, cursor, pageSize);
+        }
+        return contentService.getContentByTitleAndPage(title, currentPage, pageSize, exactTotal);
+    }
+    
+    /**
+     * 搜索词补全
+     * HTTP GET请求 /contents/search/suggest
+     * 根据用户已输入的前缀返回搜索次数最多的关键词，用于搜索框的下拉提示
+     * 
+     * @param prefix 已输入的内容，为空时返回整体最热门的关键词
+     * @param limit 最多返回的条数，默认为10
+     * @return 按搜索次数从多到少排列的关键词列表
+     */
+    @GetMapping("/search/suggest")
+    public Content_Result<List<String>> suggestKeywords(
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return Content_Result.success("获取搜索建议成功", contentService.suggestKeywords(prefix, limit));
+    }
+    
+    /**
+     * 热门搜索词
+     * HTTP GET请求 /contents/search/trending
+     * 返回近期搜索次数最多的搜索词，数据来自内存中的高频词统计
+     * 
+     * @param limit 最多返回的个数，默认为10
+     * @return 按近期搜索次数从多到少排列的搜索词及次数
+     */
+    @GetMapping("/search/trending")
+    public Content_Result<List<KeywordCount>> getTrendingKeywords(@RequestParam(defaultValue = "10") int limit) {
+        return Content_Result.success("获取热门搜索成功", contentService.getTrendingKeywords(limit));
     }
     
     /**
@@ -189,4 +347,63 @@ public class ContentController {
     public Content getVideoDetail(@PathVariable String id) {
         return contentService.getContentById(id);
     }
+
+    /**
+     * 获取视频详情缓存的统计信息
+     * HTTP GET请求 /contents/cache/stats
+     * 用于观察缓存命中率、淘汰和内存占用情况
+     * 
+     * @return 缓存统计信息
+     */
+    @GetMapping("/cache/stats")
+    public Content_Result<CacheStats> getCacheStats() {
+        return Content_Result.success("获取缓存统计成功", contentCache.stats());
+    }
+
+    /**
+     * 校验分页参数，页码和每页大小超出范围时抛出IllegalArgumentException（返回400）
+     * 避免负数偏移量传入SQL和内存索引，以及过大的页把整表读入内存
+     */
+    private static void checkPaging(int currentPage, int pageSize) {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("pageSize必须在1到" + MAX_PAGE_SIZE + "之间");
+        }
+        if (currentPage < 1 || (long) (currentPage - 1) * pageSize > Integer.MAX_VALUE - MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("currentPage超出范围");
+        }
+    }
+
+    /**
+     * 校验创建时间过滤条件，格式不对或不是有效日期时抛出IllegalArgumentException（返回400）
+     * 过滤按字符串与create_time比较，"2024-5"这类不补零的写法会得到错误的结果，因此只接受补零的前缀形式
+     *
+     * @return 去除首尾空白后的值，未传或为空时返回null
+     */
+    private static String checkTimeBound(String name, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        if (!TIME_BOUND.matcher(trimmed).matches()) {
+            throw new IllegalArgumentException(name + "格式应为yyyy-MM-dd或yyyy-MM-dd HH:mm:ss（可省略后面的部分）");
+        }
+        try {
+            FULL_TIME.parse(trimmed + FULL_TIME_TEMPLATE.substring(trimmed.length()));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + "不是有效的时间: " + trimmed);
+        }
+        return trimmed;
+    }
+
+    /**
+     * 处理参数错误（如无效的分页游标）
+     * 返回400状态码和错误信息，而不是500
+     * 
+     * @param e 参数异常
+     * @return 错误结果
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Content_Result<Void>> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Content_Result.error(e.getMessage()));
+    }
 }
\ No newline at end of file
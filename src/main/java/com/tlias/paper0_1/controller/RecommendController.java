@@ -5,6 +5,7 @@ import com.tlias.paper0_1.entity.Content_Result;
 import com.tlias.paper0_1.entity.HotVideoResponse;
 import com.tlias.paper0_1.service.ContentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -26,20 +27,48 @@ public class RecommendController {
     @Autowired
     private ContentService contentService;
 
+    /**
+     * 热门列表单页最多返回的条数
+     */
+    private static final int MAX_PAGE_SIZE = 100;
+
     /**
      * 获取热门视频
      * HTTP GET请求 /api/recommend/hot
      * 返回按点赞数排序的热门视频列表
      * 
+     * view=card时只返回卡片字段（ContentCard），不含描述等大字段
+     * 指定videoType时返回该分类按播放量排序的热门视频，可用cursor参数按游标翻页
+     * 
      * @param currentPage 当前页码，默认为1
      * @param pageSize 每页大小，默认为10
+     * @param view 返回字段范围，full（默认）或card
+     * @param videoType 视频分类，可选
+     * @param cursor 上一页返回的nextCursor，仅分类热门支持，可选；分类列表尚未加载时不接受游标
      * @return 热门视频响应对象，格式为{"code": 200, "data": {"videos": [...], "hasMore": true}}
      */
     @GetMapping("/hot")
     public Content_Result<HotVideoResponse> getHotVideos(
             @RequestParam(defaultValue = "1") Integer currentPage,
-            @RequestParam(defaultValue = "12") Integer pageSize) {
-        HotVideoResponse hotVideoResponse = contentService.getHotVideos(currentPage, pageSize);
+            @RequestParam(defaultValue = "12") Integer pageSize,
+            @RequestParam(defaultValue = "full") String view,
+            @RequestParam(required = false) String videoType,
+            @RequestParam(required = false) String cursor) {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("pageSize必须在1到" + MAX_PAGE_SIZE + "之间");
+        }
+        if (currentPage > Integer.MAX_VALUE / MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("currentPage超出范围");
+        }
+        boolean card = "card".equalsIgnoreCase(view);
+        HotVideoResponse hotVideoResponse;
+        if (videoType != null && !videoType.isEmpty()) {
+            hotVideoResponse = contentService.getHotVideosByType(videoType, currentPage, pageSize, cursor, card);
+        } else {
+            hotVideoResponse = card
+                    ? contentService.getHotVideoCards(currentPage, pageSize)
+                    : contentService.getHotVideos(currentPage, pageSize);
+        }
         return Content_Result.success("获取热门视频成功", hotVideoResponse);
     }
     
@@ -73,4 +102,16 @@ public class RecommendController {
         List<Content> videos = contentService.getPersonalizedRecommendations(userId);
         return Content_Result.success("获取个性化推荐视频成功", videos);
     }
-}
\ No newline at end of file
+
+    /**
+     * 处理参数错误（如不存在的分类、无效的分页游标）
+     * 返回400状态码和错误信息
+     * 
+     * @param e 参数异常
+     * @return 错误结果
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Content_Result<Void>> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Content_Result.error(e.getMessage()));
+    }
+}
@@ -1,14 +1,17 @@
 package com.tlias.paper0_1.controller;
 
+import com.tlias.paper0_1.component.LikeStateStore;
 import com.tlias.paper0_1.entity.Content;
+import com.tlias.paper0_1.entity.ContentCard;
 import com.tlias.paper0_1.entity.RandomVideo_Result;
 import com.tlias.paper0_1.entity.Content_Result;
 import com.tlias.paper0_1.entity.PageResult;
+import com.tlias.paper0_1.entity.VisitorFeedResponse;
 import com.tlias.paper0_1.service.ContentService;
-import com.tlias.paper0_1.service.UserLikesService;
 import com.tlias.paper0_1.tools.JwtUtil;
 import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Arrays;
@@ -21,16 +24,33 @@ public class VideoController {
     @Autowired
     private ContentService contentService;
     
+    /**
+     * 用户点赞状态存储，确认过的点赞状态在内存中检查，切换写入数据库后生效
+     */
     @Autowired
-    private UserLikesService userLikesService;
+    private LikeStateStore likeStateStore;
+
+    /**
+     * /batch 接口单次允许查询的最大ID数量
+     */
+    @Value("${paper.batch.max-ids:200}")
+    private int batchMaxIds;
+
+    /**
+     * /love/check-batch 接口单次允许检查的最大ID数量
+     */
+    @Value("${paper.like-state.max-check-ids:100}")
+    private int likeCheckMaxIds;
 
     /**
      * 获取游客随机推荐视频
+     * view=card时只返回卡片字段（ContentCard），不含描述等大字段
      */
     @GetMapping("/cumulative/visitor")
-    public RandomVideo_Result<List<Content>> getRandomVideos(
+    public RandomVideo_Result<List<? extends ContentCard>> getRandomVideos(
             @RequestParam(defaultValue = "10") Integer count,
-            @RequestParam(required = false) String vids) {
+            @RequestParam(required = false) String vids,
+            @RequestParam(defaultValue = "full") String view) {
         
         // 解析排除的视频ID列表
         List<String> excludeIds = null;
@@ -39,7 +59,9 @@ public class VideoController {
         }
         
         // 调用 Service 获取随机视频列表
-        List<Content> list = contentService.getRandomVideos(count, excludeIds);
+        List<? extends ContentCard> list = "card".equalsIgnoreCase(view)
+                ? contentService.getRandomVideoCards(count, excludeIds)
+                : contentService.getRandomVideos(count, excludeIds);
         
         // 判断是否还有更多数据：排除指定ID后，看是否还有额外的记录
         long remainingCount = contentService.getTotalVideoCount(excludeIds);
@@ -48,6 +70,33 @@ public class VideoController {
         return RandomVideo_Result.build(200, "获取随机视频成功", list, hasMore);
     }
     
+    /**
+     * 游客信息流（无状态排重）
+     * HTTP GET请求 /api/video/cumulative/visitor/feed
+     * 服务端按种子生成伪随机排列并返回续页令牌，前端只需回传token，不用再回传已看过的vids
+     * 
+     * @param count 每页数量
+     * @param token 上一页返回的令牌，第一页不传
+     * @param view 返回字段范围，full（默认）或card
+     * @return Content_Result<VisitorFeedResponse> 本页视频、是否有更多和下一页令牌
+     */
+    @GetMapping("/cumulative/visitor/feed")
+    public Content_Result<VisitorFeedResponse> getVisitorFeed(
+            @RequestParam(defaultValue = "10") Integer count,
+            @RequestParam(required = false) String token,
+            @RequestParam(defaultValue = "full") String view) {
+        VisitorFeedResponse feed;
+        try {
+            feed = contentService.getVisitorFeed(token, count, "card".equalsIgnoreCase(view));
+        } catch (IllegalArgumentException e) {
+            return Content_Result.error(e.getMessage());
+        }
+        if (feed == null) {
+            return Content_Result.error("视频池加载中，请稍后重试");
+        }
+        return Content_Result.success("获取随机视频成功", feed);
+    }
+    
     /**
      * 获取随机视频（不排重，使用Content_Result返回）
      */
@@ -80,6 +129,27 @@ public class VideoController {
         }
     }
     
+    /**
+     * 按ID批量获取视频信息
+     * HTTP GET请求 /api/video/batch?vids={视频ID,视频ID,...}
+     * 一次请求填充多张视频卡片，代替逐个调用/getone
+     * 
+     * @param vids 逗号分隔的视频ID，最多batch-max-ids个
+     * @param view 返回字段范围，full（默认）或card
+     * @return Content_Result<List> 视频列表，顺序与vids一致，不存在的视频跳过
+     */
+    @GetMapping("/batch")
+    public Content_Result<List<? extends ContentCard>> getVideosByIds(
+            @RequestParam("vids") String vids,
+            @RequestParam(defaultValue = "full") String view) {
+        List<String> ids = Arrays.asList(vids.split(","));
+        if (ids.size() > batchMaxIds) {
+            return Content_Result.error("一次最多查询" + batchMaxIds + "个视频");
+        }
+        List<? extends ContentCard> list = contentService.getContentsByIds(ids, "card".equalsIgnoreCase(view));
+        return Content_Result.success("获取视频成功", list);
+    }
+    
     /**
      * 获取收藏夹中的视频列表
      * HTTP GET 请求 /api/video/user-collect
@@ -89,9 +159,10 @@ public class VideoController {
             @RequestParam("fid") Long fid,
             @RequestParam(value = "rule", defaultValue = "1") Integer rule,
             @RequestParam(value = "page", defaultValue = "1") Integer page,
-            @RequestParam(value = "quantity", defaultValue = "10") Integer quantity) {
+            @RequestParam(value = "quantity", defaultValue = "10") Integer quantity,
+            @RequestParam(value = "exactTotal", defaultValue = "false") boolean exactTotal) {
         
-        PageResult<Content> result = contentService.getFavoriteVideos(fid, rule, page, quantity);
+        PageResult<Content> result = contentService.getFavoriteVideos(fid, rule, page, quantity, exactTotal);
         
         if (result != null && result.getItems() != null) {
             return Content_Result.success("获取收藏夹视频成功", result);
@@ -121,10 +192,10 @@ public class VideoController {
         String message = "";
         
         if ("like".equals(action)) {
-            success = userLikesService.handleLike(userId, videoId, true);
+            success = likeStateStore.toggle(userId, videoId, true);
             message = success ? "点赞成功" : "点赞失败";
         } else if ("unlike".equals(action)) {
-            success = userLikesService.handleLike(userId, videoId, false);
+            success = likeStateStore.toggle(userId, videoId, false);
             message = success ? "取消点赞成功" : "取消点赞失败";
         } else {
             return Content_Result.error("无效的操作类型");
@@ -152,11 +223,38 @@ public class VideoController {
         String userId = claims.get("id").toString();
         
         // 检查是否已点赞
-        boolean isLiked = userLikesService.isLiked(userId, videoId);
+        boolean isLiked = likeStateStore.isLiked(userId, videoId);
         
         return Content_Result.success("检查成功", isLiked);
     }
     
+    /**
+     * 批量检查用户点赞过哪些视频
+     * HTTP GET 请求 /api/video/love/check-batch?videoIds={视频ID,视频ID,...}
+     * 一页视频卡片只需一次请求，代替逐个调用/love/check
+     * 
+     * @param videoIds 逗号分隔的视频ID，单次最多paper.like-state.max-check-ids个
+     * @return Content_Result<List<String>> 其中已点赞的视频ID
+     */
+    @GetMapping("/love/check-batch")
+    public Content_Result<List<String>> checkLoveBatch(
+            @RequestHeader("Authorization") String authorization,
+            @RequestParam("videoIds") String videoIds) {
+        
+        // 从 token 中获取用户 ID
+        String token = authorization.replace("Bearer ", "");
+        Claims claims = JwtUtil.parseToken(token);
+        String userId = claims.get("id").toString();
+        
+        List<String> ids = Arrays.asList(videoIds.split(","));
+        if (ids.size() > likeCheckMaxIds) {
+            return Content_Result.error("一次最多检查" + likeCheckMaxIds + "个视频");
+        }
+        List<String> liked = likeStateStore.filterLiked(userId, ids);
+        
+        return Content_Result.success("检查成功", liked);
+    }
+    
     // 内部请求类定义
     public static class LoveOrNotRequest {
         private String videoId;
@@ -0,0 +1,56 @@
+package com.tlias.paper0_1.entity;
+
+import lombok.Data;
+
+/**
+ * 缓存统计信息
+ * 格式：{"hits": 100, "misses": 5, "hitRate": 0.95, ...}
+ */
+@Data
+public class CacheStats {
+
+    /**
+     * 命中次数
+     */
+    private Long hits;
+
+    /**
+     * 未命中次数
+     */
+    private Long misses;
+
+    /**
+     * 命中率（0-1）
+     */
+    private Double hitRate;
+
+    /**
+     * 实际访问数据库加载的次数（含后台刷新）
+     */
+    private Long loads;
+
+    /**
+     * 因容量不足被淘汰的条目数
+     */
+    private Long evictions;
+
+    /**
+     * 因访问频率不足未被接纳进主区的条目数
+     */
+    private Long rejections;
+
+    /**
+     * 当前条目数
+     */
+    private Long size;
+
+    /**
+     * 当前占用的估算字节数
+     */
+    private Long weightBytes;
+
+    /**
+     * 容量上限（估算字节数）
+     */
+    private Long maxWeightBytes;
+}
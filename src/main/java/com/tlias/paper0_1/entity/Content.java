@@ -3,24 +3,22 @@ package com.tlias.paper0_1.entity;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
+/**
+ * 视频内容实体类
+ * 在ContentCard卡片字段的基础上补充描述、各项统计等完整信息
+ */
 @Data
 @NoArgsConstructor
-public class Content {
-    private String video_id;
-    private String video_type;
-    private String title;
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class Content extends ContentCard {
     private String description;
-    private String create_time;
-    private String author_id;
-    private String nick_name;
 //    private String avatar;
-    private String video_url;
-    private String video_cover_url;
-    private long liked_count;
     private long disliked_count;
-    private long video_play_count;
     private long video_share_count;
     private long video_favorite_count;
     private long video_coin_count;
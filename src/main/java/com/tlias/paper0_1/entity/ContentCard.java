@@ -0,0 +1,25 @@
+package com.tlias.paper0_1.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 视频卡片实体类
+ * 列表、信息流中的视频卡片只展示这些字段，不包含描述等大字段
+ * 用于减少列表查询的数据库传输量、对象分配和JSON体积
+ * 完整的视频信息见Content
+ */
+@Data
+@NoArgsConstructor
+public class ContentCard {
+    private String video_id;
+    private String video_type;
+    private String title;
+    private String create_time;
+    private String author_id;
+    private String nick_name;
+    private String video_url;
+    private String video_cover_url;
+    private long liked_count;
+    private long video_play_count;
+}
@@ -0,0 +1,30 @@
+package com.tlias.paper0_1.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 视频计数增量
+ * 用于把内存中累积的点赞、不喜欢变化量批量写回数据库
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CounterDelta {
+
+    /**
+     * 视频ID
+     */
+    private String video_id;
+
+    /**
+     * 点赞数变化量
+     */
+    private long liked_delta;
+
+    /**
+     * 不喜欢数变化量
+     */
+    private long disliked_delta;
+}
@@ -0,0 +1,24 @@
+package com.tlias.paper0_1.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 分面统计中的一项：某个维度取值（或区间）下的命中数
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetCount {
+
+    /**
+     * 维度取值，区间维度为区间名称，如 2024-05、100-999
+     */
+    private String value;
+
+    /**
+     * 命中数
+     */
+    private Long count;
+}
@@ -0,0 +1,33 @@
+package com.tlias.paper0_1.entity;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 带分面统计的分页结果
+ * 在PageResult的基础上附带各维度的命中数，前端据此展示筛选项及其数量
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class FacetedPageResult<T> extends PageResult<T> {
+
+    /**
+     * 各维度的分面统计，键为维度名（video_type、status、source_keyword、create_time、liked_count）
+     * 每个维度的计数都应用了其他维度的过滤条件、不应用本维度的条件，因此同一维度内的数量可以直接用于切换筛选项
+     * 索引不可用时为null
+     */
+    private Map<String, List<FacetCount>> facets;
+
+    public FacetedPageResult(PageResult<T> page, Map<String, List<FacetCount>> facets) {
+        super(page.getItems(), page.getTotal(), page.getTotalExact(), page.getPageSize(), page.getCurrentPage(),
+                page.getTotalPages(), page.getHasNextPage(), page.getNextCursor());
+        this.facets = facets;
+    }
+}
@@ -17,21 +17,26 @@ import java.util.List;
 public class HotVideoResponse {
     
     /**
-     * 视频列表
+     * 视频列表 - 完整的Content或精简的ContentCard
      */
-    private List<Content> videos;
+    private List<? extends ContentCard> videos;
     
     /**
      * 是否还有更多数据
      */
     private Boolean hasMore;
+
+    /**
+     * 下一页游标 - 分类热门列表按游标翻页时返回，没有更多数据时为null
+     */
+    private String nextCursor;
     
     /**
      * 构造函数，接收视频列表和是否有更多数据
      * @param videos 视频列表
      * @param hasMore 是否还有更多数据
      */
-    public HotVideoResponse(List<Content> videos, boolean hasMore) {
+    public HotVideoResponse(List<? extends ContentCard> videos, boolean hasMore) {
         this.videos = videos;
         this.hasMore = hasMore;
     }
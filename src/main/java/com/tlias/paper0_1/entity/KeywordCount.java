@@ -0,0 +1,24 @@
+package com.tlias.paper0_1.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 搜索词及其近期搜索次数
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeywordCount {
+
+    /**
+     * 归一化后的搜索词
+     */
+    private String keyword;
+
+    /**
+     * 近期搜索次数的估算值，随时间衰减
+     */
+    private Long count;
+}
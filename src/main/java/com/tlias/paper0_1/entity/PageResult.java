@@ -23,6 +23,11 @@ public class PageResult<T> {
      * 总记录数
      */
     private Long total;
+
+    /**
+     * 总记录数是否为精确值 - false表示来自总数缓存，可能存在短暂延迟
+     */
+    private Boolean totalExact;
     
     /**
      * 每页大小
@@ -43,4 +48,9 @@ public class PageResult<T> {
      * 是否还有下一页
      */
     private Boolean hasNextPage;
+
+    /**
+     * 下一页游标 - 游标分页模式下回传给 cursor 参数即可获取下一页，没有更多数据时为null
+     */
+    private String nextCursor;
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.tlias.paper0_1.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 搜索过滤条件
+ * 同一维度的多个取值之间是“或”，不同维度之间是“且”；为null或空的维度不参与过滤
+ */
+@Data
+@NoArgsConstructor
+public class SearchFilter {
+
+    /**
+     * 视频类型
+     */
+    private List<String> videoTypes;
+
+    /**
+     * 视频状态
+     */
+    private List<String> statuses;
+
+    /**
+     * 采集关键词
+     */
+    private List<String> sourceKeywords;
+
+    /**
+     * 创建时间下限（包含），与create_time按字符串比较，如 2024-05 或 2024-05-01 00:00:00
+     */
+    private String createdFrom;
+
+    /**
+     * 创建时间上限（不包含）
+     */
+    private String createdTo;
+
+    /**
+     * 最少点赞数
+     */
+    private Long minLikes;
+
+    /**
+     * 是否设置了任何过滤条件
+     */
+    public boolean hasConditions() {
+        return notEmpty(videoTypes) || notEmpty(statuses) || notEmpty(sourceKeywords)
+                || createdFrom != null || createdTo != null || minLikes != null;
+    }
+
+    private static boolean notEmpty(List<String> values) {
+        return values != null && !values.isEmpty();
+    }
+}
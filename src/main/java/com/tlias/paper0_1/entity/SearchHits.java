@@ -0,0 +1,38 @@
+package com.tlias.paper0_1.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 搜索结果
+ * 只包含当前页的视频ID，视频详情由调用方统一从缓存或数据库取出
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHits {
+
+    /**
+     * 当前页的视频ID，已按搜索引擎的排序规则排列
+     */
+    private List<String> videoIds;
+
+    /**
+     * 全部命中的数量 - 搜索时能顺带得到精确总数的引擎才填写，否则为null，由调用方另行统计
+     */
+    private Long total;
+
+    /**
+     * 分面统计 - 只有带过滤条件的搜索才填写
+     */
+    private Map<String, List<FacetCount>> facets;
+
+    public SearchHits(List<String> videoIds, Long total) {
+        this.videoIds = videoIds;
+        this.total = total;
+    }
+}
@@ -0,0 +1,75 @@
+package com.tlias.paper0_1.entity;
+
+import lombok.Data;
+
+/**
+ * 上游接口调用统计信息
+ * 格式：{"upstream": "api.bilibili.com", "circuitState": "CLOSED", "requests": 100, "p95Ms": 120.0, ...}
+ */
+@Data
+public class UpstreamStats {
+
+    /**
+     * 上游主机名
+     */
+    private String upstream;
+
+    /**
+     * 熔断器状态：CLOSED、OPEN或HALF_OPEN
+     */
+    private String circuitState;
+
+    /**
+     * 实际发出的请求数（含对冲请求）
+     */
+    private Long requests;
+
+    /**
+     * 失败的请求数（网络错误、超时、5xx、412/429）
+     */
+    private Long failures;
+
+    /**
+     * 其中超时的请求数
+     */
+    private Long timeouts;
+
+    /**
+     * 熔断打开时被直接拒绝的调用数
+     */
+    private Long shortCircuited;
+
+    /**
+     * 同时进行的请求数达到上限被拒绝的调用数
+     */
+    private Long rejected;
+
+    /**
+     * 发出的对冲请求数
+     */
+    private Long hedged;
+
+    /**
+     * 对冲请求先于原请求返回的次数
+     */
+    private Long hedgeWins;
+
+    /**
+     * 上游失败时以缓存或数据库数据代替返回的次数
+     */
+    private Long fallbacks;
+
+    /**
+     * 当前进行中的请求数
+     */
+    private Integer inFlight;
+
+    /**
+     * 最近一到两分钟内请求耗时的中位数（毫秒），没有请求时为-1
+     */
+    private Double p50Ms;
+
+    private Double p95Ms;
+
+    private Double p99Ms;
+}
@@ -0,0 +1,32 @@
+package com.tlias.paper0_1.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 游客信息流API响应类
+ * 格式：{"code": 200, "data": {"videos": [...], "hasMore": true, "token": "..."}}
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VisitorFeedResponse {
+
+    /**
+     * 视频列表 - 完整的Content或精简的ContentCard
+     */
+    private List<? extends ContentCard> videos;
+
+    /**
+     * 是否还有更多数据
+     */
+    private Boolean hasMore;
+
+    /**
+     * 续页令牌 - 请求下一页时原样回传，没有更多数据时为null
+     */
+    private String token;
+}
@@ -1,7 +1,11 @@
 package com.tlias.paper0_1.mapper;
 
 import com.tlias.paper0_1.entity.Content;
+import com.tlias.paper0_1.entity.ContentCard;
+import com.tlias.paper0_1.entity.CounterDelta;
+import com.tlias.paper0_1.entity.SearchFilter;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.annotations.Param;
 
 import java.util.List;
@@ -22,6 +26,31 @@ public interface ContentMapper {
      */
     List<Content> getAllContents();
 
+    /**
+     * 以游标方式逐行读取所有视频内容
+     * 使用服务端游标分批拉取，不会把整张表加载到内存中
+     * 必须在事务（或打开的SqlSession）内遍历，遍历结束后关闭
+     *
+     * @return 视频内容游标
+     */
+    Cursor<Content> streamAllContents();
+
+    /**
+     * 以游标方式逐行读取构建标题索引所需的字段（video_id、video_type、title、create_time、liked_count、status、source_keyword）
+     * 必须在打开的SqlSession内遍历，遍历结束后关闭
+     *
+     * @return 视频内容游标，只填充上述字段
+     */
+    Cursor<Content> streamTitleIndexRows();
+
+    /**
+     * 查询创建时间不早于since的视频的标题索引字段，用于增量更新标题索引
+     *
+     * @param since 创建时间下限（包含）
+     * @return 视频内容列表，只填充streamTitleIndexRows中的字段
+     */
+    List<Content> getTitleIndexRowsSince(@Param("since") String since);
+
     /**
      * 根据ID查询单个视频内容信息
      * 从video_contents表中根据video_id字段精确查询单条记录
@@ -41,6 +70,38 @@ public interface ContentMapper {
      */
     List<Content> getContentByPage(@Param("offset") int offset, @Param("size") int size);
 
+    /**
+     * 分页查询视频卡片
+     * 与getContentByPage相同，但只查询卡片需要的字段
+     *
+     * @param offset 偏移量，从0开始
+     * @param size   页面大小，即每页返回多少条记录
+     * @return 视频卡片列表
+     */
+    List<ContentCard> getContentCardByPage(@Param("offset") int offset, @Param("size") int size);
+
+    /**
+     * 游标分页查询视频内容
+     * 按(create_time, video_id)降序，从游标位置之后开始读取，避免大偏移量扫描
+     *
+     * @param cursorTime 上一页最后一条的create_time，为null时从第一页开始
+     * @param cursorId   上一页最后一条的video_id
+     * @param size       页面大小，即每页返回多少条记录
+     * @return 视频内容列表
+     */
+    List<Content> getContentByCursor(@Param("cursorTime") String cursorTime, @Param("cursorId") String cursorId, @Param("size") int size);
+
+    /**
+     * 游标分页查询视频卡片
+     * 与getContentByCursor相同，但只查询卡片需要的字段
+     *
+     * @param cursorTime 上一页最后一条的create_time，为null时从第一页开始
+     * @param cursorId   上一页最后一条的video_id
+     * @param size       页面大小，即每页返回多少条记录
+     * @return 视频卡片列表
+     */
+    List<ContentCard> getContentCardByCursor(@Param("cursorTime") String cursorTime, @Param("cursorId") String cursorId, @Param("size") int size);
+
     /**
      * 查询视频内容总数
      * 获取video_contents表中的总记录数
@@ -50,24 +111,34 @@ public interface ContentMapper {
     long getContentCount();
 
     /**
-     * 根据标题模糊查询视频内容
-     * 从video_contents表中根据标题字段进行模糊查询
+     * 查询最新视频的创建时间，用于发现新增视频
      *
-     * @param title 要查询的标题关键词
-     * @return 匹配标题关键词的视频内容列表
+     * @return 最大的create_time，没有视频时返回null
      */
-    List<Content> getContentByTitle(@Param("title") String title);
+    String getLatestCreateTime();
 
     /**
-     * 根据标题模糊查询视频内容（分页）
-     * 从video_contents表中根据标题字段进行模糊查询，并按分页参数返回结果
+     * 根据标题模糊查询视频ID（分页）
+     * 按create_time降序、video_id降序排列
      *
      * @param title  要查询的标题关键词
      * @param offset 偏移量，从0开始
      * @param size   页面大小，即每页返回多少条记录
-     * @return 匹配标题关键词的视频内容列表
+     * @return 匹配标题关键词的视频ID列表
+     */
+    List<String> searchIdsByTitle(@Param("title") String title, @Param("offset") int offset, @Param("size") int size);
+
+    /**
+     * 根据标题模糊查询视频ID（游标分页）
+     * 排序方式与getContentByCursor一致
+     *
+     * @param title      要查询的标题关键词
+     * @param cursorTime 上一页最后一条的create_time，为null时从第一页开始
+     * @param cursorId   上一页最后一条的video_id
+     * @param size       页面大小，即每页返回多少条记录
+     * @return 匹配标题关键词的视频ID列表
      */
-    List<Content> getContentByTitleAndPage(@Param("title") String title, @Param("offset") int offset, @Param("size") int size);
+    List<String> searchIdsByTitleAfter(@Param("title") String title, @Param("cursorTime") String cursorTime, @Param("cursorId") String cursorId, @Param("size") int size);
 
     /**
      * 根据标题查询视频内容总数
@@ -78,6 +149,62 @@ public interface ContentMapper {
      */
     long getContentCountByTitle(@Param("title") String title);
 
+    /**
+     * 根据标题和过滤条件查询视频ID，标题索引不可用时使用
+     * 按create_time降序、video_id降序排列，cursorTime不为null时只返回游标之后的结果
+     *
+     * @param title      要查询的标题关键词
+     * @param filter     过滤条件
+     * @param cursorTime 上一页最后一条的create_time，为null时按offset分页
+     * @param cursorId   上一页最后一条的video_id
+     * @param offset     偏移量，游标分页时传0
+     * @param size       页面大小
+     * @return 匹配的视频ID列表
+     */
+    List<String> searchIdsByTitleFiltered(@Param("title") String title, @Param("filter") SearchFilter filter,
+                                          @Param("cursorTime") String cursorTime, @Param("cursorId") String cursorId,
+                                          @Param("offset") int offset, @Param("size") int size);
+
+    /**
+     * 根据标题和过滤条件查询视频总数
+     *
+     * @param title  要查询的标题关键词
+     * @param filter 过滤条件
+     * @return 匹配的视频总数
+     */
+    long getContentCountByTitleFiltered(@Param("title") String title, @Param("filter") SearchFilter filter);
+
+    /**
+     * 在title和description上全文检索视频ID（分页）
+     * 按相关度降序排列，相关度相同时按create_time降序、video_id降序
+     *
+     * @param query  布尔模式的查询串
+     * @param offset 偏移量，从0开始
+     * @param size   页面大小，即每页返回多少条记录
+     * @return 视频ID列表
+     */
+    List<String> searchIdsByFulltext(@Param("query") String query, @Param("offset") int offset, @Param("size") int size);
+
+    /**
+     * 在title和description上全文检索视频ID（游标分页）
+     * 排序方式与getContentByCursor一致
+     *
+     * @param query      布尔模式的查询串
+     * @param cursorTime 上一页最后一条的create_time，为null时从第一页开始
+     * @param cursorId   上一页最后一条的video_id
+     * @param size       页面大小，即每页返回多少条记录
+     * @return 视频ID列表
+     */
+    List<String> searchIdsByFulltextAfter(@Param("query") String query, @Param("cursorTime") String cursorTime, @Param("cursorId") String cursorId, @Param("size") int size);
+
+    /**
+     * 全文检索命中的视频总数
+     *
+     * @param query 布尔模式的查询串
+     * @return 命中总数
+     */
+    long getContentCountByFulltext(@Param("query") String query);
+
     /**
      * 更新视频内容的点赞数量
      * 为指定视频ID的内容增加或减少点赞数量
@@ -98,6 +225,15 @@ public interface ContentMapper {
      */
     int updateDislikedCount(@Param("videoId") String videoId, @Param("count") long count);
 
+    /**
+     * 批量累加多个视频的点赞数和不喜欢数
+     * 一条多行UPDATE写回一批视频的计数增量
+     *
+     * @param deltas 计数增量列表，不能为空，视频ID不能重复
+     * @return 更新影响的行数
+     */
+    int applyCounterDeltas(@Param("deltas") List<CounterDelta> deltas);
+
     /**
      * 获取热门视频列表（按点赞数排序）
      * 从video_data表中获取热门视频数据，按点赞数降序排列
@@ -108,7 +244,74 @@ public interface ContentMapper {
      */
     List<Content> getHotVideos(@Param("offset") int offset, @Param("size") int size);
 
+    /**
+     * 获取热门视频卡片列表（按点赞数排序）
+     *
+     * @param offset 偏移量，从0开始
+     * @param size   页面大小，即每页返回多少条记录
+     * @return 热门视频卡片列表
+     */
+    List<ContentCard> getHotVideoCards(@Param("offset") int offset, @Param("size") int size);
+
+    /**
+     * 按视频类型获取热门视频列表（按播放量排序）
+     *
+     * @param videoType 视频类型
+     * @param offset    偏移量，从0开始
+     * @param size      页面大小，即每页返回多少条记录
+     * @return 该类型的热门视频列表
+     */
+    List<Content> getHotVideoByVideoType(@Param("videoType") String videoType, @Param("offset") int offset, @Param("size") int size);
+
+    /**
+     * 查询所有视频类型
+     *
+     * @return 去重后的视频类型列表
+     */
+    List<String> getVideoTypes();
+
     List<Content> selectRandomVideos(@Param("count") int count, @Param("excludeIds") List<String> excludeIds);
+
+    List<ContentCard> selectRandomVideoCards(@Param("count") int count, @Param("excludeIds") List<String> excludeIds);
+
+    /**
+     * 查询videos_hot表的全部视频ID，用于构建内存中的随机抽样池
+     *
+     * @return 视频ID列表
+     */
+    List<String> getHotVideoIds();
+
+    /**
+     * 按主键批量查询videos_hot表中的视频
+     *
+     * @param ids 视频ID列表，不能为空
+     * @return 视频列表（顺序不保证与ids一致）
+     */
+    List<Content> getHotVideosByIds(@Param("ids") List<String> ids);
+
+    /**
+     * 按主键批量查询videos_hot表中的视频卡片
+     *
+     * @param ids 视频ID列表，不能为空
+     * @return 视频卡片列表（顺序不保证与ids一致）
+     */
+    List<ContentCard> getHotVideoCardsByIds(@Param("ids") List<String> ids);
+
+    /**
+     * 按主键批量查询视频
+     *
+     * @param ids 视频ID列表，不能为空
+     * @return 视频列表（顺序不保证与ids一致）
+     */
+    List<Content> getContentsByIds(@Param("ids") List<String> ids);
+
+    /**
+     * 按主键批量查询视频卡片
+     *
+     * @param ids 视频ID列表，不能为空
+     * @return 视频卡片列表（顺序不保证与ids一致）
+     */
+    List<ContentCard> getContentCardsByIds(@Param("ids") List<String> ids);
     
     long getTotalVideoCount(@Param("excludeIds") List<String> excludeIds);
     
@@ -0,0 +1,23 @@
+package com.tlias.paper0_1.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 用户点赞记录数据访问接口
+ * 用于把用户的全部点赞记录一次性加载到内存
+ */
+@Mapper
+public interface LikeStateMapper {
+
+    /**
+     * 查询用户点赞过的全部视频ID
+     *
+     * @param table  点赞记录表名（paper.like-state.table），需要有user_id、video_id两列
+     * @param userId 用户ID
+     * @return 视频ID列表
+     */
+    List<String> selectLikedVideoIds(@Param("table") String table, @Param("userId") String userId);
+}
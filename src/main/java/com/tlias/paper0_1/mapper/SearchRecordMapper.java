@@ -0,0 +1,33 @@
+package com.tlias.paper0_1.mapper;
+
+import com.tlias.paper0_1.entity.SearchRecord;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
+
+import java.util.List;
+
+/**
+ * 搜索记录数据访问接口
+ * 对应search_record表，按关键词保存累计搜索次数
+ */
+@Mapper
+public interface SearchRecordMapper {
+
+    /**
+     * 以游标方式逐行读取全部关键词及其搜索次数，用于构建搜索建议索引
+     * 必须在打开的SqlSession内遍历，遍历结束后关闭
+     *
+     * @return 搜索记录游标，只填充keyword、count
+     */
+    Cursor<SearchRecord> streamKeywordCounts();
+
+    /**
+     * 批量累加关键词的搜索次数，关键词不存在时插入
+     * 依赖search_record.keyword上的唯一索引
+     *
+     * @param records 关键词及本次要累加的次数
+     * @return 影响行数
+     */
+    int upsertKeywordCounts(@Param("records") List<SearchRecord> records);
+}
@@ -0,0 +1,20 @@
+package com.tlias.paper0_1.service;
+
+import com.tlias.paper0_1.entity.UpstreamStats;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface BilibiliService {
+    // 异步获取B站视频详情（精简后的JSON），vid支持BV号、av号和纯数字aid
+    CompletableFuture<String> getVideoInfo(String vid);
+
+    // 异步批量获取B站视频详情，返回以请求中的vid为键的JSON对象，单个视频失败或超时不影响其余结果
+    CompletableFuture<String> getVideoInfos(List<String> vids);
+
+    // 后台刷新视频统计数据：缓存仍新鲜时跳过，否则向B站重新请求；返回是否成功（跳过也视为成功）
+    CompletableFuture<Boolean> refreshStats(String vid);
+
+    // 获取B站接口的调用统计（延迟分位数、错误数、熔断状态等）
+    UpstreamStats getUpstreamStats();
+}
@@ -1,27 +1,60 @@
 package com.tlias.paper0_1.service;
 
 import com.tlias.paper0_1.entity.Content;
+import com.tlias.paper0_1.entity.ContentCard;
 import com.tlias.paper0_1.entity.Content_Result;
+import com.tlias.paper0_1.entity.FacetedPageResult;
 import com.tlias.paper0_1.entity.HotVideoResponse;
+import com.tlias.paper0_1.entity.KeywordCount;
 import com.tlias.paper0_1.entity.PageResult;
+import com.tlias.paper0_1.entity.SearchFilter;
+import com.tlias.paper0_1.entity.VisitorFeedResponse;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ContentService {
     // 查询所有视频内容
     List<Content> getAllContents();
 
+    // 逐行遍历所有视频内容，内存占用与数据量无关
+    void streamAllContents(Consumer<Content> consumer);
+
     // 根据ID查询视频内容
     Content getContentById(String id);
 
-    // 分页查询视频内容
-    PageResult<Content> getContentByPage(int currentPage, int pageSize);
+    //按ID批量获取视频，结果顺序与ids一致，查不到的ID跳过
+    List<? extends ContentCard> getContentsByIds(List<String> ids, boolean card);
+
+    // 分页查询视频内容，exactTotal为false时总数取自总数缓存
+    PageResult<Content> getContentByPage(int currentPage, int pageSize, boolean exactTotal);
+
+    // 游标分页查询视频内容，cursor为空时返回第一页
+    PageResult<Content> getContentByCursor(String cursor, int pageSize);
+
+    // 分页查询视频卡片（不含描述等大字段）
+    PageResult<ContentCard> getContentCardByPage(int currentPage, int pageSize, boolean exactTotal);
+
+    // 游标分页查询视频卡片
+    PageResult<ContentCard> getContentCardByCursor(String cursor, int pageSize);
 
     // 根据标题模糊查询视频内容
     List<Content> getContentByTitle(String title);
 
-    // 根据标题分页查询视频内容
-    PageResult<Content> getContentByTitleAndPage(String title, int currentPage, int pageSize);
+    // 根据标题分页查询视频内容，exactTotal为false时总数取自总数缓存
+    PageResult<Content> getContentByTitleAndPage(String title, int currentPage, int pageSize, boolean exactTotal);
+
+    // 根据标题游标分页查询视频内容，cursor为空时返回第一页
+    PageResult<Content> getContentByTitleAndCursor(String title, String cursor, int pageSize);
+
+    // 根据标题和过滤条件分页查询视频内容并统计分面，cursor不为null时使用游标分页
+    FacetedPageResult<Content> getContentByTitleAndFilter(String title, SearchFilter filter, String cursor, int currentPage, int pageSize);
+
+    // 搜索词补全，返回以prefix开头、搜索次数最多的关键词
+    List<String> suggestKeywords(String prefix, int limit);
+
+    // 近期热门搜索词
+    List<KeywordCount> getTrendingKeywords(int limit);
 
     // 点赞功能 - 增加视频的点赞数量
     Content_Result<Void> likeVideo(String videoId);
@@ -44,8 +77,20 @@ public interface ContentService {
     // 获取热门视频
     HotVideoResponse getHotVideos(int currentPage, int pageSize);
 
+    // 获取热门视频卡片
+    HotVideoResponse getHotVideoCards(int currentPage, int pageSize);
+
+    // 按视频类型获取热门视频，cursor不为null时按游标翻页；分类不存在或游标无法定位时抛出IllegalArgumentException
+    HotVideoResponse getHotVideosByType(String videoType, int currentPage, int pageSize, String cursor, boolean card);
+
     //获取随机视频
     List<Content> getRandomVideos(int count, List<String> excludeIds);
+
+    //获取随机视频卡片
+    List<ContentCard> getRandomVideoCards(int count, List<String> excludeIds);
+
+    //按令牌获取游客信息流的下一页，token为空时开始新的信息流
+    VisitorFeedResponse getVisitorFeed(String token, int count, boolean card);
     
     //获取视频总记录数（用于判断是否有更多数据）
     long getTotalVideoCount(List<String> excludeIds);
@@ -54,7 +99,7 @@ public interface ContentService {
     List<Content> getRandomVideosWithoutExclude(int count);
     
     // 获取收藏夹中的视频列表
-    PageResult<Content> getFavoriteVideos(Long favoriteId, Integer rule, Integer page, Integer quantity);
+    PageResult<Content> getFavoriteVideos(Long favoriteId, Integer rule, Integer page, Integer quantity, boolean exactTotal);
     
     // 根据source_keyword查询视频列表
     List<Content> getVideosBySourceKeyword(String sourceKeyword, int size);
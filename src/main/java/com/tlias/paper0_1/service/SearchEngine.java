@@ -0,0 +1,26 @@
+package com.tlias.paper0_1.service;
+
+import com.tlias.paper0_1.entity.SearchHits;
+
+/**
+ * 标题搜索引擎
+ * ContentService的标题搜索通过该接口完成，具体实现由配置项paper.search.engine选择：
+ * like（数据库LIKE查询）、memory（内存倒排索引）、fulltext（MySQL ngram全文索引）
+ */
+public interface SearchEngine {
+
+    // 引擎名称，与paper.search.engine的取值对应
+    String name();
+
+    // 按页码位置搜索，返回[offset, offset + limit)范围内的视频ID，排序规则由引擎决定
+    SearchHits search(String title, int offset, int limit);
+
+    // 按游标搜索，返回按create_time降序、video_id降序排在(cursorTime, cursorId)之后的视频ID；cursorTime为null时从第一条开始
+    SearchHits searchAfter(String title, String cursorTime, String cursorId, int limit);
+
+    // 统计命中总数
+    long count(String title);
+
+    // 搜索词在本引擎下的等价形式，用作总数缓存和搜索结果缓存的键：等价形式相同的搜索词，搜索结果也必定相同
+    String queryKey(String title);
+}
@@ -0,0 +1,724 @@
+package com.tlias.paper0_1.service.impl;
+
+import com.tlias.paper0_1.component.ContentCache;
+import com.tlias.paper0_1.component.StatsBuffer;
+import com.tlias.paper0_1.entity.Content;
+import com.tlias.paper0_1.entity.UpstreamStats;
+import com.tlias.paper0_1.mapper.ContentMapper;
+import com.tlias.paper0_1.service.BilibiliService;
+import com.tlias.paper0_1.tools.BilibiliVideoExtractor;
+import com.tlias.paper0_1.tools.CircuitBreaker;
+import com.tlias.paper0_1.tools.LatencyHistogram;
+import com.tlias.paper0_1.tools.BilibiliVideoExtractor.VideoInfo;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * B站代理服务实现类
+ * 调用B站视频详情接口，把庞大的原始JSON精简为前端需要的字段，并顺带把统计数据交给写入缓冲
+ * 原始JSON用BilibiliVideoExtractor流式解析，只读取需要的字段
+ *
+ * 精简后的JSON按归一化的视频号缓存（BV号、av号、纯数字aid落到同一个键）：
+ * 超过refresh-after的缓存先返回旧值并在后台刷新，超过ttl后同步重新请求；
+ * 同一个视频号同时未命中时只向B站发出一次请求，其余请求等待并共享结果
+ *
+ * 使用JDK HttpClient异步请求，等待B站响应期间不占用Tomcat工作线程；
+ * 连接和响应都有超时，同时进行中的请求数受max-in-flight限制
+ *
+ * 批量获取时命中缓存的视频直接返回，其余视频最多bulk.parallelism个同时请求，
+ * 每个视频单独计算超时，超时或失败的视频在结果中对应错误JSON，其余视频照常返回
+ *
+ * B站接口的调用经过熔断器：最近的调用失败率过高时暂停请求，之后以少量探测请求判断是否恢复；
+ * 请求失败或熔断期间，代理接口返回最后一次成功的缓存结果（即使已过期），没有缓存时用数据库中的视频数据拼装
+ * 可选开启对冲请求：原请求超过近期延迟的指定分位数仍未返回时再发一次，以先返回的为准
+ */
+@Service
+public class BilibiliServiceImpl implements BilibiliService {
+
+    /**
+     * 所有错误JSON的公共前缀，用于区分成功结果
+     */
+    private static final String ERROR_PREFIX = "{\"code\": -1,";
+
+    private static final String UPSTREAM_ERROR = "{\"code\": -1, \"message\": \"B站API返回错误\"}";
+
+    private static final String PARSE_ERROR = "{\"code\": -1, \"message\": \"后端解析数据失败\"}";
+
+    private static final String TIMEOUT_ERROR = "{\"code\": -1, \"message\": \"B站API响应超时\"}";
+
+    private static final String BUSY_ERROR = "{\"code\": -1, \"message\": \"请求过多，请稍后重试\"}";
+
+    private static final String UNAVAILABLE_ERROR = "{\"code\": -1, \"message\": \"B站API暂时不可用\"}";
+
+    /**
+     * BV号与aid互相换算用的字母表和常量
+     */
+    private static final String BV_ALPHABET = "FcwAPNKTMug3GV5Lj7EJnHpWsx4tb8haYeviqBz6rkCy12mUSDQX9RdoZf";
+
+    private static final long BV_XOR = 23442827791579L;
+
+    private static final long BV_MASK = 2251799813685247L;
+
+    private static final JsonFactory JSON_FACTORY = new ObjectMapper().getFactory();
+
+    @Autowired
+    private StatsBuffer statsBuffer;
+
+    @Autowired
+    private ContentMapper contentMapper;
+
+    @Autowired
+    private ContentCache contentCache;
+
+    /**
+     * B站接口地址，测试时可指向本地的模拟服务
+     */
+    @Value("${paper.bilibili.base-url:https://api.bilibili.com}")
+    private String baseUrl;
+
+    /**
+     * 连接B站的超时时间（毫秒）
+     */
+    @Value("${paper.bilibili.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    /**
+     * 等待B站响应的超时时间（毫秒）
+     */
+    @Value("${paper.bilibili.read-timeout-ms:5000}")
+    private long readTimeoutMs;
+
+    /**
+     * 同时向B站发出的请求数上限
+     */
+    @Value("${paper.bilibili.max-in-flight:64}")
+    private int maxInFlight;
+
+    /**
+     * 缓存超过该时长后在后台刷新（毫秒）
+     */
+    @Value("${paper.bilibili.cache.refresh-after-ms:30000}")
+    private long refreshAfterMs;
+
+    /**
+     * 缓存最长使用时间（毫秒），超过后同步重新请求
+     */
+    @Value("${paper.bilibili.cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    /**
+     * 最多缓存的视频数量
+     */
+    @Value("${paper.bilibili.cache.max-entries:10000}")
+    private int maxEntries;
+
+    /**
+     * 批量获取时同时向B站请求的视频数上限
+     */
+    @Value("${paper.bilibili.bulk.parallelism:8}")
+    private int bulkParallelism;
+
+    /**
+     * 批量获取时单个视频的超时时间（毫秒），超时后该视频返回错误JSON，请求本身仍在后台完成并写入缓存
+     */
+    @Value("${paper.bilibili.bulk.item-timeout-ms:3000}")
+    private long bulkItemTimeoutMs;
+
+    /**
+     * 熔断器：统计失败率的最近调用数
+     */
+    @Value("${paper.bilibili.breaker.window:20}")
+    private int breakerWindow;
+
+    /**
+     * 熔断器：计算失败率所需的最少调用数
+     */
+    @Value("${paper.bilibili.breaker.min-calls:10}")
+    private int breakerMinCalls;
+
+    /**
+     * 熔断器：打开熔断的失败率
+     */
+    @Value("${paper.bilibili.breaker.failure-rate:0.5}")
+    private double breakerFailureRate;
+
+    /**
+     * 熔断器：打开后暂停请求的时长（毫秒）
+     */
+    @Value("${paper.bilibili.breaker.open-ms:10000}")
+    private long breakerOpenMs;
+
+    /**
+     * 熔断器：半开状态下的探测请求数，全部成功后恢复
+     */
+    @Value("${paper.bilibili.breaker.half-open-probes:2}")
+    private int breakerHalfOpenProbes;
+
+    /**
+     * 是否开启对冲请求
+     */
+    @Value("${paper.bilibili.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+
+    /**
+     * 原请求耗时超过近期延迟的该分位数时发出对冲请求
+     */
+    @Value("${paper.bilibili.hedge.percentile:0.95}")
+    private double hedgePercentile;
+
+    /**
+     * 对冲请求的最短等待时间（毫秒），避免延迟很低时过早对冲
+     */
+    @Value("${paper.bilibili.hedge.min-delay-ms:50}")
+    private long hedgeMinDelayMs;
+
+    /**
+     * 延迟统计的时间窗口（毫秒）
+     */
+    @Value("${paper.bilibili.metrics.window-ms:60000}")
+    private long metricsWindowMs;
+
+    private final Map<String, Entry> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    /**
+     * 正在向B站请求的视频号 -> 请求结果
+     */
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private HttpClient httpClient;
+
+    private Semaphore permits;
+
+    private CircuitBreaker breaker;
+
+    private LatencyHistogram latency;
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder timeouts = new LongAdder();
+
+    private final LongAdder shortCircuited = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder hedged = new LongAdder();
+
+    private final LongAdder hedgeWins = new LongAdder();
+
+    private final LongAdder fallbacks = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        // HttpClient自带连接池并复用keep-alive连接，所有请求共享一个实例
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        permits = new Semaphore(maxInFlight);
+        breaker = new CircuitBreaker(breakerWindow, breakerMinCalls, breakerFailureRate, breakerOpenMs, breakerHalfOpenProbes);
+        latency = new LatencyHistogram(metricsWindowMs);
+    }
+
+    /**
+     * 获取B站视频详情
+     * 命中缓存时直接返回已完成的结果；需要请求B站时不占用调用方线程，结果在响应到达后完成
+     *
+     * @param vid BV号、av号或纯数字aid
+     * @return 精简后的JSON字符串；出错时为code为-1的JSON
+     */
+    @Override
+    public CompletableFuture<String> getVideoInfo(String vid) {
+        String key = normalizeVid(vid);
+        if (key == null) {
+            return CompletableFuture.completedFuture(UPSTREAM_ERROR);
+        }
+        Entry entry;
+        synchronized (cache) {
+            entry = cache.get(key);
+        }
+        long age = entry == null ? Long.MAX_VALUE : System.currentTimeMillis() - entry.fetchedAt;
+        if (age <= ttlMs) {
+            if (age > refreshAfterMs && refreshing.add(key)) {
+                fetchShared(key).whenComplete((json, e) -> refreshing.remove(key));
+            }
+            return CompletableFuture.completedFuture(entry.json);
+        }
+        // B站明确返回错误（如视频不存在）时不降级，其余错误都是上游或网络的问题
+        return fetchShared(key).thenApply(json ->
+                json.startsWith(ERROR_PREFIX) && !UPSTREAM_ERROR.equals(json) ? fallback(key, json) : json);
+    }
+
+    @Override
+    public UpstreamStats getUpstreamStats() {
+        UpstreamStats stats = new UpstreamStats();
+        stats.setUpstream(URI.create(baseUrl).getHost());
+        stats.setCircuitState(breaker.state().name());
+        stats.setRequests(requests.sum());
+        stats.setFailures(failures.sum());
+        stats.setTimeouts(timeouts.sum());
+        stats.setShortCircuited(shortCircuited.sum());
+        stats.setRejected(rejected.sum());
+        stats.setHedged(hedged.sum());
+        stats.setHedgeWins(hedgeWins.sum());
+        stats.setFallbacks(fallbacks.sum());
+        stats.setInFlight(maxInFlight - permits.availablePermits());
+        stats.setP50Ms(latency.percentileMs(0.5));
+        stats.setP95Ms(latency.percentileMs(0.95));
+        stats.setP99Ms(latency.percentileMs(0.99));
+        return stats;
+    }
+
+    /**
+     * 刷新视频统计数据，供后台定时任务调用
+     * 缓存未超过refresh-after时认为数据足够新，直接跳过；否则走与代理请求相同的获取、解析和写入缓冲流程
+     *
+     * @param vid 视频ID（aid或BV号）
+     * @return 成功或跳过时为true；视频号无法识别、B站返回错误、超时或请求数达到上限时为false
+     */
+    @Override
+    public CompletableFuture<Boolean> refreshStats(String vid) {
+        String key = normalizeVid(vid);
+        if (key == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        Entry entry;
+        synchronized (cache) {
+            entry = cache.get(key);
+        }
+        if (entry != null && System.currentTimeMillis() - entry.fetchedAt <= refreshAfterMs) {
+            return CompletableFuture.completedFuture(true);
+        }
+        return fetchShared(key).thenApply(json -> !json.startsWith(ERROR_PREFIX));
+    }
+
+    /**
+     * 批量获取B站视频详情
+     * 按顺序启动各视频的获取：命中缓存的立即得到结果，需要请求B站的最多bulkParallelism个同时进行，
+     * 每完成一个再启动下一个；归一化后相同的视频号只获取一次
+     *
+     * @param vids BV号、av号或纯数字aid列表
+     * @return {"code":200,"message":"获取成功","data":{vid: 精简后的JSON或错误JSON, ...}}
+     */
+    @Override
+    public CompletableFuture<String> getVideoInfos(List<String> vids) {
+        List<String> keys = new ArrayList<>();
+        Map<String, String> vidToKey = new LinkedHashMap<>();
+        for (String vid : vids) {
+            String trimmed = vid.trim();
+            if (trimmed.isEmpty() || vidToKey.containsKey(trimmed)) {
+                continue;
+            }
+            String key = normalizeVid(trimmed);
+            vidToKey.put(trimmed, key);
+            if (key != null && !keys.contains(key)) {
+                keys.add(key);
+            }
+        }
+
+        Map<String, String> results = new ConcurrentHashMap<>();
+        CompletableFuture<String> done = new CompletableFuture<>();
+        if (keys.isEmpty()) {
+            done.complete(writeBulk(vidToKey, results));
+            return done;
+        }
+        AtomicInteger cursor = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(keys.size());
+        Runnable onItemDone = () -> {
+            if (remaining.decrementAndGet() == 0) {
+                done.complete(writeBulk(vidToKey, results));
+            }
+        };
+        for (int i = 0; i < Math.min(bulkParallelism, keys.size()); i++) {
+            launchNext(keys, cursor, results, onItemDone);
+        }
+        return done;
+    }
+
+    /**
+     * 依次取出下一个视频号开始获取，命中缓存的直接记录结果并继续取下一个，
+     * 需要等待B站响应的在完成（或超时）后再接着取下一个，因此每条启动链同时只占用一个请求
+     */
+    private void launchNext(List<String> keys, AtomicInteger cursor, Map<String, String> results, Runnable onItemDone) {
+        int index;
+        while ((index = cursor.getAndIncrement()) < keys.size()) {
+            String key = keys.get(index);
+            // 复制一份再设置超时，避免影响共享同一次调用的其他请求
+            CompletableFuture<String> item = getVideoInfo(key).copy()
+                    .completeOnTimeout(TIMEOUT_ERROR, bulkItemTimeoutMs, TimeUnit.MILLISECONDS);
+            if (item.isDone()) {
+                results.put(key, item.getNow(PARSE_ERROR));
+                onItemDone.run();
+                continue;
+            }
+            item.whenComplete((json, e) -> {
+                results.put(key, e == null ? json : errorJsonOf(e));
+                onItemDone.run();
+                launchNext(keys, cursor, results, onItemDone);
+            });
+            return;
+        }
+    }
+
+    /**
+     * 拼装批量结果，各视频的JSON原样嵌入
+     */
+    private static String writeBulk(Map<String, String> vidToKey, Map<String, String> results) {
+        StringWriter out = new StringWriter(1024);
+        try (JsonGenerator g = JSON_FACTORY.createGenerator(out)) {
+            g.writeStartObject();
+            g.writeNumberField("code", 200);
+            g.writeStringField("message", "获取成功");
+            g.writeObjectFieldStart("data");
+            for (Map.Entry<String, String> e : vidToKey.entrySet()) {
+                String json = e.getValue() == null ? UPSTREAM_ERROR : results.getOrDefault(e.getValue(), PARSE_ERROR);
+                g.writeFieldName(e.getKey());
+                g.writeRawValue(json);
+            }
+            g.writeEndObject();
+            g.writeEndObject();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return PARSE_ERROR;
+        }
+        return out.toString();
+    }
+
+    /**
+     * 归一化视频号：BV号按B站公开的换算规则转为aid，av号和纯数字aid统一为"av"加数字；
+     * 无法换算的BV号保留为"BV"前缀的形式
+     *
+     * @return 归一化后的视频号；无法识别时返回null
+     */
+    static String normalizeVid(String vid) {
+        if (vid == null) {
+            return null;
+        }
+        String trimmed = vid.trim();
+        if (trimmed.length() > 2 && trimmed.regionMatches(true, 0, "BV", 0, 2)) {
+            String bvid = "BV" + trimmed.substring(2);
+            long aid = bvToAid(bvid);
+            return aid > 0 ? "av" + aid : bvid;
+        }
+        String digits = trimmed.toLowerCase(Locale.ROOT).startsWith("av") ? trimmed.substring(2) : trimmed;
+        if (digits.isEmpty() || !digits.chars().allMatch(Character::isDigit)) {
+            return null;
+        }
+        return "av" + digits;
+    }
+
+    /**
+     * BV号换算为aid
+     *
+     * @return aid；格式不正确时返回-1
+     */
+    private static long bvToAid(String bvid) {
+        if (bvid.length() != 12 || bvid.charAt(2) != '1') {
+            return -1;
+        }
+        char[] chars = bvid.toCharArray();
+        char swap = chars[3];
+        chars[3] = chars[9];
+        chars[9] = swap;
+        swap = chars[4];
+        chars[4] = chars[7];
+        chars[7] = swap;
+        long value = 0;
+        for (int i = 3; i < chars.length; i++) {
+            int digit = BV_ALPHABET.indexOf(chars[i]);
+            if (digit < 0) {
+                return -1;
+            }
+            value = value * 58 + digit;
+        }
+        return (value & BV_MASK) ^ BV_XOR;
+    }
+
+    /**
+     * 向B站请求视频详情，同一个视频号的并发请求共享同一次调用
+     */
+    private CompletableFuture<String> fetchShared(String key) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing;
+        }
+        fetch(key).whenComplete((json, e) -> {
+            inFlight.remove(key, future);
+            future.complete(e == null ? json : errorJsonOf(e));
+        });
+        return future;
+    }
+
+    /**
+     * 异步调用B站接口，成功时写入缓存并同步数据库中的统计数据
+     * 同时进行中的请求数达到上限或熔断打开时直接返回错误，不排队等待
+     */
+    private CompletableFuture<String> fetch(String key) {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            return CompletableFuture.completedFuture(BUSY_ERROR);
+        }
+        if (!breaker.tryAcquire()) {
+            permits.release();
+            shortCircuited.increment();
+            return CompletableFuture.completedFuture(UNAVAILABLE_ERROR);
+        }
+        String bilibiliUrl = baseUrl + "/x/web-interface/view?"
+                + (key.startsWith("BV") ? "bvid=" + key : "aid=" + key.substring(2));
+
+        // 伪造请求头突破防爬
+        HttpRequest request = HttpRequest.newBuilder(URI.create(bilibiliUrl))
+                .timeout(Duration.ofMillis(readTimeoutMs))
+                .header("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36")
+                .GET()
+                .build();
+
+        CompletableFuture<String> result = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        attempt(key, request, result, outstanding, false);
+        if (hedgeEnabled) {
+            double threshold = latency.percentileMs(hedgePercentile);
+            if (threshold >= 0) {
+                long delay = Math.max(hedgeMinDelayMs, (long) Math.ceil(threshold));
+                CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+                        .execute(() -> hedge(key, request, result, outstanding));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 原请求仍未返回时发出对冲请求
+     * 只在熔断关闭且还有空闲请求名额时进行，避免在上游出问题时放大流量
+     */
+    private void hedge(String key, HttpRequest request, CompletableFuture<String> result, AtomicInteger outstanding) {
+        if (result.isDone() || breaker.state() != CircuitBreaker.State.CLOSED || !permits.tryAcquire()) {
+            return;
+        }
+        if (!breaker.tryAcquire()) {
+            permits.release();
+            return;
+        }
+        outstanding.incrementAndGet();
+        hedged.increment();
+        attempt(key, request, result, outstanding, true);
+    }
+
+    /**
+     * 发出一次请求，调用前已取得请求名额和熔断器许可
+     * 第一个成功的请求完成result；全部请求都失败时以最后一个的错误完成
+     */
+    private void attempt(String key, HttpRequest request, CompletableFuture<String> result,
+                         AtomicInteger outstanding, boolean isHedge) {
+        requests.increment();
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<byte[]>> sent;
+        try {
+            sent = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        sent.whenComplete((response, e) -> {
+            permits.release();
+            latency.record(System.nanoTime() - start);
+            boolean failed = e != null || isUpstreamFailure(response.statusCode());
+            if (failed) {
+                breaker.onFailure();
+                failures.increment();
+                String error = e == null ? UNAVAILABLE_ERROR : errorJsonOf(e);
+                if (TIMEOUT_ERROR.equals(error)) {
+                    timeouts.increment();
+                }
+                if (outstanding.decrementAndGet() == 0) {
+                    result.complete(error);
+                }
+                return;
+            }
+            breaker.onSuccess();
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                if (result.complete(handleResponse(key, response.body())) && isHedge) {
+                    hedgeWins.increment();
+                }
+            } catch (RuntimeException ex) {
+                ex.printStackTrace();
+                result.complete(PARSE_ERROR);
+            }
+        });
+    }
+
+    /**
+     * 是否是上游自身的故障：5xx，或B站的限流响应（412、429）
+     * 其余状态码说明上游能正常响应，不计入熔断
+     */
+    private static boolean isUpstreamFailure(int status) {
+        return status >= 500 || status == 412 || status == 429;
+    }
+
+    /**
+     * 请求B站失败时的降级结果
+     * 优先返回最后一次成功的缓存结果（即使已超过ttl），其次用数据库中的视频数据拼装，都没有时返回原错误
+     */
+    private String fallback(String key, String error) {
+        Entry entry;
+        synchronized (cache) {
+            entry = cache.get(key);
+        }
+        if (entry != null) {
+            fallbacks.increment();
+            return entry.json;
+        }
+        try {
+            String videoId = key.startsWith("BV") ? key : key.substring(2);
+            Content content = contentCache.get(videoId, contentMapper::getContentById);
+            if (content == null) {
+                return error;
+            }
+            fallbacks.increment();
+            return writeFromContent(content, key.startsWith("BV") ? key : "");
+        } catch (Exception e) {
+            e.printStackTrace();
+            return error;
+        }
+    }
+
+    /**
+     * 用数据库中的视频数据拼装与精简JSON相同结构的结果
+     */
+    private static String writeFromContent(Content c, String bvid) throws IOException {
+        StringWriter out = new StringWriter(512);
+        try (JsonGenerator g = JSON_FACTORY.createGenerator(out)) {
+            g.writeStartObject();
+            g.writeNumberField("code", 200);
+            g.writeStringField("message", "B站暂时不可用，返回本地数据");
+
+            g.writeObjectFieldStart("data");
+            g.writeStringField("bvid", bvid);
+            g.writeStringField("title", c.getTitle());
+            g.writeStringField("desc", c.getDescription());
+            g.writeStringField("cover_url", c.getVideo_cover_url());
+
+            g.writeObjectFieldStart("author");
+            g.writeStringField("uid", c.getAuthor_id());
+            g.writeStringField("nickname", c.getNick_name());
+            g.writeStringField("avatar", "");
+            g.writeEndObject();
+
+            g.writeObjectFieldStart("stats");
+            g.writeNumberField("view_count", c.getVideo_play_count());
+            g.writeNumberField("danmaku_count", 0);
+            g.writeNumberField("like_count", c.getLiked_count());
+            g.writeNumberField("coin_count", c.getVideo_coin_count());
+            g.writeNumberField("favorite_count", c.getVideo_favorite_count());
+            g.writeEndObject();
+
+            g.writeArrayFieldStart("parts_info");
+            g.writeEndArray();
+
+            g.writeEndObject();
+            g.writeEndObject();
+        }
+        return out.toString();
+    }
+
+    /**
+     * 流式解析B站返回的JSON，只提取需要的字段
+     */
+    private String handleResponse(String key, byte[] body) {
+        VideoInfo info;
+        String resultJson;
+        try {
+            info = BilibiliVideoExtractor.parse(body);
+            // 如果 B 站返回错误（如视频不存在），不缓存
+            if (info.getCode() != 0) {
+                return UPSTREAM_ERROR;
+            }
+            resultJson = BilibiliVideoExtractor.writeSimplified(info);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return PARSE_ERROR;
+        }
+        synchronized (cache) {
+            cache.put(key, new Entry(resultJson, System.currentTimeMillis()));
+        }
+
+        // 同时记录最新的统计数据
+        updateVideoStats(info);
+
+        return resultJson;
+    }
+
+    private static String errorJsonOf(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof HttpTimeoutException) {
+            return TIMEOUT_ERROR;
+        }
+        if (cause instanceof IOException) {
+            return UNAVAILABLE_ERROR;
+        }
+        cause.printStackTrace();
+        return PARSE_ERROR;
+    }
+
+    /**
+     * 把视频统计数据交给写入缓冲，由后台批量写回数据库
+     * @param info 从 B 站 API 响应中提取的视频信息
+     */
+    private void updateVideoStats(VideoInfo info) {
+        // 提取统计数据
+        long viewCount = info.getViewCount();
+        long likeCount = info.getLikeCount();
+        long coinCount = info.getCoinCount();
+        long favoriteCount = info.getFavoriteCount();
+        long shareCount = info.getShareCount();
+
+        // 获取视频的真实 ID（优先使用 aid，如果没有则用 bvid）
+        String videoId = info.getAid();
+        if (videoId.isEmpty() || videoId.equals("0")) {
+            videoId = info.getBvid();
+        }
+
+        // 只保留最新快照，写回后再使缓存失效并调整热门排行榜
+        statsBuffer.offer(videoId, likeCount, favoriteCount, shareCount, coinCount, viewCount);
+    }
+
+    private record Entry(String json, long fetchedAt) {
+    }
+}
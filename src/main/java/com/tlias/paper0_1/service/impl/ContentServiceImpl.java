@@ -1,18 +1,49 @@
 package com.tlias.paper0_1.service.impl;
 
+import com.tlias.paper0_1.component.CategoryHotLists;
+import com.tlias.paper0_1.component.ContentCache;
+import com.tlias.paper0_1.component.CountCache;
+import com.tlias.paper0_1.component.CounterBuffer;
+import com.tlias.paper0_1.component.HotLeaderboard;
+import com.tlias.paper0_1.component.KeywordSuggester;
+import com.tlias.paper0_1.component.RandomVideoSampler;
+import com.tlias.paper0_1.component.SearchResultCache;
+import com.tlias.paper0_1.component.SearchTermCounter;
+import com.tlias.paper0_1.component.TitleIndex;
 import com.tlias.paper0_1.entity.Content;
+import com.tlias.paper0_1.entity.ContentCard;
 import com.tlias.paper0_1.entity.Content_Result;
+import com.tlias.paper0_1.entity.FacetedPageResult;
 import com.tlias.paper0_1.entity.HotVideoResponse;
+import com.tlias.paper0_1.entity.KeywordCount;
 import com.tlias.paper0_1.entity.PageResult;
+import com.tlias.paper0_1.entity.SearchFilter;
+import com.tlias.paper0_1.entity.SearchHits;
 import com.tlias.paper0_1.entity.UserRecommendation;
+import com.tlias.paper0_1.entity.VisitorFeedResponse;
 import com.tlias.paper0_1.mapper.ContentMapper;
 import com.tlias.paper0_1.mapper.UserRecommendationMapper;
 import com.tlias.paper0_1.service.ContentService;
+import com.tlias.paper0_1.service.SearchEngine;
+import com.tlias.paper0_1.tools.PageCursor;
+import com.tlias.paper0_1.tools.QueryNormalizer;
+import jakarta.annotation.PostConstruct;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 /**
  * 内容服务实现类
@@ -38,6 +69,108 @@ public class ContentServiceImpl implements ContentService {
     @Autowired
     private UserRecommendationMapper userRecommendationMapper;
 
+    /**
+     * 分页总数缓存
+     * 用于在翻页时避免重复执行 count(*)
+     */
+    @Autowired
+    private CountCache countCache;
+
+    /**
+     * 视频详情缓存
+     * 按ID查询视频时优先读缓存，点赞等写操作后失效
+     */
+    @Autowired
+    private ContentCache contentCache;
+
+    /**
+     * 点赞、不喜欢计数的写后缓冲
+     * 点击只累加到内存，由缓冲定时批量写回数据库
+     */
+    @Autowired
+    private CounterBuffer counterBuffer;
+
+    /**
+     * 全部标题搜索引擎，按paper.search.engine选出实际使用的一个
+     */
+    @Autowired
+    private List<SearchEngine> searchEngines;
+
+    /**
+     * 标题搜索使用的引擎：like、memory或fulltext
+     */
+    @Value("${paper.search.engine:memory}")
+    private String searchEngineName;
+
+    private SearchEngine searchEngine;
+
+    /**
+     * 标题内存索引，同时提供带过滤条件的分面搜索
+     */
+    @Autowired
+    private TitleIndex titleIndex;
+
+    /**
+     * 搜索词补全索引
+     */
+    @Autowired
+    private KeywordSuggester keywordSuggester;
+
+    /**
+     * 搜索词计数，只在内存中累计，定时写回search_record表
+     */
+    @Autowired
+    private SearchTermCounter searchTermCounter;
+
+    /**
+     * 标题搜索结果缓存，只缓存每页的视频ID
+     */
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    /**
+     * 批量查询时单条IN语句最多包含的ID数量
+     */
+    @Value("${paper.batch.chunk-size:200}")
+    private int batchChunkSize;
+
+    /**
+     * 热门视频排行榜
+     * 热门列表优先从内存排行榜返回
+     */
+    @Autowired
+    private HotLeaderboard hotLeaderboard;
+
+    /**
+     * 分类热门列表
+     * 按视频类型划分的热门列表优先从内存返回
+     */
+    @Autowired
+    private CategoryHotLists categoryHotLists;
+
+    /**
+     * 随机视频抽样器
+     * 在内存ID池中抽样，代替 ORDER BY RAND()
+     */
+    @Autowired
+    private RandomVideoSampler randomVideoSampler;
+
+    private static final String COUNT_KEY_ALL = "all";
+
+    /**
+     * 按配置选出标题搜索引擎，配置的名称不存在时启动失败
+     */
+    @PostConstruct
+    public void initSearchEngine() {
+        for (SearchEngine engine : searchEngines) {
+            if (engine.name().equals(searchEngineName)) {
+                searchEngine = engine;
+                return;
+            }
+        }
+        throw new IllegalStateException("未知的搜索引擎: " + searchEngineName);
+    }
+
     /**
      * 获取所有视频内容信息
      * 调用数据访问层方法获取全部视频内容数据
@@ -46,111 +179,454 @@ public class ContentServiceImpl implements ContentService {
      */
     @Override
     public List<Content> getAllContents() {
-        return contentMapper.getAllContents();
+        return withPendingCounts(contentMapper.getAllContents());
+    }
+
+    /**
+     * 逐行遍历所有视频内容
+     * 基于MyBatis游标，每次只在内存中保留一行，游标需要在只读事务内保持打开
+     * 
+     * @param consumer 每行数据的处理方法
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllContents(Consumer<Content> consumer) {
+        try (Cursor<Content> cursor = contentMapper.streamAllContents()) {
+            for (Content content : cursor) {
+                consumer.accept(withPendingCounts(content));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     /**
      * 根据ID获取单个视频内容信息
-     * 通过数据访问层根据ID查询特定的视频内容信息
+     * 优先从进程内缓存读取，未命中时查询数据库；点赞数和不喜欢数包含尚未写回数据库的增量
      * 
      * @param id 要查询的视频内容ID
      * @return 对应ID的视频内容对象，如果不存在则返回null
      */
     @Override
     public Content getContentById(String id) {
-        return contentMapper.getContentById(id);
+        Content content = contentCache.get(id, contentMapper::getContentById);
+        return content == null ? null : withPendingCounts(content);
+    }
+
+    /**
+     * 叠加尚未写回数据库的点赞、不喜欢增量
+     * 所有返回视频的读取路径都经过这里，计数缓冲中尚未写回的点击在列表、热门、搜索等页面上同样可见
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends ContentCard> T withPendingCounts(T content) {
+        long liked = counterBuffer.pendingLiked(content.getVideo_id());
+        long disliked = content instanceof Content ? counterBuffer.pendingDisliked(content.getVideo_id()) : 0;
+        if (liked == 0 && disliked == 0) {
+            return content;
+        }
+        // 缓存、排行榜中的对象是共享的，叠加增量前先复制
+        T copy = (T) BeanUtils.instantiateClass(content.getClass());
+        BeanUtils.copyProperties(content, copy);
+        copy.setLiked_count(copy.getLiked_count() + liked);
+        if (copy instanceof Content full) {
+            full.setDisliked_count(full.getDisliked_count() + disliked);
+        }
+        return copy;
+    }
+
+    /**
+     * 对列表中的每条视频叠加尚未写回的增量，没有增量时返回原列表
+     */
+    private <T extends ContentCard> List<T> withPendingCounts(List<T> contents) {
+        if (contents == null) {
+            return null;
+        }
+        List<T> result = null;
+        for (int i = 0; i < contents.size(); i++) {
+            T content = contents.get(i);
+            T adjusted = withPendingCounts(content);
+            if (adjusted != content) {
+                if (result == null) {
+                    result = new java.util.ArrayList<>(contents);
+                }
+                result.set(i, adjusted);
+            }
+        }
+        return result == null ? contents : result;
+    }
+
+    /**
+     * 对热门列表响应中的视频叠加尚未写回的增量
+     * 热门排行的顺序按已写回的计数排列，尚未写回的点击最多在一个写回周期后体现到顺序上
+     */
+    private HotVideoResponse withPendingCounts(HotVideoResponse response) {
+        response.setVideos(withPendingCounts(response.getVideos()));
+        return response;
+    }
+
+    /**
+     * 按给定顺序取出视频详情，优先读缓存，未命中的按批查询数据库
+     */
+    private List<Content> hydrate(List<String> ids) {
+        Map<String, Content> loaded = contentCache.getAll(ids, misses -> {
+            List<Content> rows = new java.util.ArrayList<>(misses.size());
+            for (int from = 0; from < misses.size(); from += batchChunkSize) {
+                rows.addAll(contentMapper.getContentsByIds(misses.subList(from, Math.min(from + batchChunkSize, misses.size()))));
+            }
+            return rows;
+        });
+        List<Content> contents = new java.util.ArrayList<>(ids.size());
+        for (String id : ids) {
+            Content content = loaded.get(id);
+            if (content != null) {
+                contents.add(withPendingCounts(content));
+            }
+        }
+        return contents;
     }
 
     /**
      * 分页获取视频内容
      * 根据当前页码和页面大小获取指定范围的视频内容数据
      * 
+     * 是否有下一页通过多查一条判断；总数默认取自总数缓存，exactTotal为true时才实时统计
+     * 
      * @param currentPage 当前页码
      * @param pageSize 每页大小
+     * @param exactTotal 是否需要精确总数
      * @return 分页结果，包含当前页数据和分页信息
      */
     @Override
-    public PageResult<Content> getContentByPage(int currentPage, int pageSize) {
+    public PageResult<Content> getContentByPage(int currentPage, int pageSize, boolean exactTotal) {
         // 计算偏移量
         int offset = (currentPage - 1) * pageSize;
         
-        // 查询当前页数据
-        List<Content> contents = contentMapper.getContentByPage(offset, pageSize);
+        // 查询当前页数据，多查一条用于判断是否还有下一页
+        List<Content> contents = withPendingCounts(contentMapper.getContentByPage(offset, pageSize + 1));
         
-        // 查询总记录数
-        long totalCount = contentMapper.getContentCount();
-        
-        // 计算总页数
-        int totalPages = (int) Math.ceil((double) totalCount / pageSize);
+        return buildOffsetPage(contents, currentPage, pageSize,
+                COUNT_KEY_ALL, contentMapper::getContentCount, exactTotal);
+    }
+
+    /**
+     * 游标分页获取视频内容
+     * 按(create_time, video_id)从上一页最后一条之后继续读取，不计算偏移量也不统计总数，
+     * 翻到多深的页面耗时都保持稳定
+     * 
+     * @param cursor 上一页返回的nextCursor，为空时返回第一页
+     * @param pageSize 每页大小
+     * @return 分页结果，包含当前页数据和下一页游标
+     */
+    @Override
+    public PageResult<Content> getContentByCursor(String cursor, int pageSize) {
+        PageCursor pageCursor = parseCursor(cursor);
         
-        // 创建分页结果
-        PageResult<Content> result = new PageResult<>();
-        result.setItems(contents);
-        result.setTotal(totalCount);
-        result.setPageSize(pageSize);
-        result.setCurrentPage(currentPage);
-        result.setTotalPages(totalPages);
-        result.setHasNextPage(currentPage < totalPages);
+        // 多查一条用于判断是否还有下一页
+        List<Content> contents = withPendingCounts(contentMapper.getContentByCursor(
+                pageCursor != null ? pageCursor.getKey() : null,
+                pageCursor != null ? pageCursor.getId() : null,
+                pageSize + 1));
         
-        return result;
+        return buildCursorPage(contents, pageSize, COUNT_KEY_ALL, contentMapper::getContentCount);
+    }
+
+    /**
+     * 分页获取视频卡片
+     * 与getContentByPage相同，但只查询列表卡片需要的字段
+     * 
+     * @param currentPage 当前页码
+     * @param pageSize 每页大小
+     * @param exactTotal 是否需要精确总数
+     * @return 分页结果，包含当前页卡片和分页信息
+     */
+    @Override
+    public PageResult<ContentCard> getContentCardByPage(int currentPage, int pageSize, boolean exactTotal) {
+        int offset = (currentPage - 1) * pageSize;
+        List<ContentCard> cards = withPendingCounts(contentMapper.getContentCardByPage(offset, pageSize + 1));
+        return buildOffsetPage(cards, currentPage, pageSize,
+                COUNT_KEY_ALL, contentMapper::getContentCount, exactTotal);
+    }
+
+    /**
+     * 游标分页获取视频卡片
+     * 与getContentByCursor相同，但只查询列表卡片需要的字段
+     * 
+     * @param cursor 上一页返回的nextCursor，为空时返回第一页
+     * @param pageSize 每页大小
+     * @return 分页结果，包含当前页卡片和下一页游标
+     */
+    @Override
+    public PageResult<ContentCard> getContentCardByCursor(String cursor, int pageSize) {
+        PageCursor pageCursor = parseCursor(cursor);
+        List<ContentCard> cards = withPendingCounts(contentMapper.getContentCardByCursor(
+                pageCursor != null ? pageCursor.getKey() : null,
+                pageCursor != null ? pageCursor.getId() : null,
+                pageSize + 1));
+        return buildCursorPage(cards, pageSize, COUNT_KEY_ALL, contentMapper::getContentCount);
     }
 
     /**
      * 根据标题模糊查询视频内容
-     * 通过数据访问层根据标题关键词进行模糊查询
+     * 由配置选择的搜索引擎查出匹配的视频ID，再从视频详情缓存中取出
+     * 搜索引擎收到去掉首尾空白的原始关键词，缓存键使用该引擎下的等价形式，结果必定相同的写法共用搜索结果缓存
      * 
      * @param title 标题关键词
      * @return 匹配标题关键词的视频内容列表
      */
     @Override
     public List<Content> getContentByTitle(String title) {
-        return contentMapper.getContentByTitle(title);
+        searchTermCounter.record(title);
+        String query = title.trim();
+        return hydrate(searchResultCache.get(searchCacheKey("all", query),
+                () -> searchEngine.search(query, 0, Integer.MAX_VALUE)).getVideoIds());
     }
 
     /**
      * 根据标题分页查询视频内容
      * 根据标题关键词进行模糊查询并按分页参数返回结果
+     * 每页的视频ID先查搜索结果缓存，热门关键词的翻页不访问数据库
      * 
      * @param title 标题关键词
      * @param currentPage 当前页码
      * @param pageSize 每页大小
+     * @param exactTotal 是否需要精确总数
      * @return 分页结果，包含当前页数据和分页信息
      */
     @Override
-    public PageResult<Content> getContentByTitleAndPage(String title, int currentPage, int pageSize) {
+    public PageResult<Content> getContentByTitleAndPage(String title, int currentPage, int pageSize, boolean exactTotal) {
         // 计算偏移量
         int offset = (currentPage - 1) * pageSize;
+        // 只有第一页算作一次搜索，翻页不重复计数
+        if (currentPage == 1) {
+            searchTermCounter.record(title);
+        }
+        
+        // 查询当前页数据，多查一条用于判断是否还有下一页
+        String query = title.trim();
+        SearchHits hits = searchResultCache.get(searchCacheKey(offset + ":" + (pageSize + 1), query),
+                () -> searchEngine.search(query, offset, pageSize + 1));
+        List<Content> contents = hydrate(hits.getVideoIds());
+        
+        // 搜索引擎顺带给出精确总数时直接使用，不需要总数缓存
+        if (hits.getTotal() != null) {
+            return buildOffsetPage(contents, currentPage, pageSize, titleCountKey(query), hits::getTotal, true);
+        }
+        return buildOffsetPage(contents, currentPage, pageSize,
+                titleCountKey(query), () -> searchEngine.count(query), exactTotal);
+    }
+
+    /**
+     * 根据标题游标分页查询视频内容
+     * 
+     * @param title 标题关键词
+     * @param cursor 上一页返回的nextCursor，为空时返回第一页
+     * @param pageSize 每页大小
+     * @return 分页结果，包含当前页数据和下一页游标
+     */
+    @Override
+    public PageResult<Content> getContentByTitleAndCursor(String title, String cursor, int pageSize) {
+        PageCursor pageCursor = parseCursor(cursor);
+        if (pageCursor == null) {
+            searchTermCounter.record(title);
+        }
+        
+        String query = title.trim();
+        String position = pageCursor != null ? "after:" + cursor + ":" + (pageSize + 1) : "after::" + (pageSize + 1);
+        SearchHits hits = searchResultCache.get(searchCacheKey(position, query),
+                () -> searchEngine.searchAfter(query,
+                        pageCursor != null ? pageCursor.getKey() : null,
+                        pageCursor != null ? pageCursor.getId() : null,
+                        pageSize + 1));
+        List<Content> contents = hydrate(hits.getVideoIds());
+        
+        if (hits.getTotal() != null) {
+            countCache.put(titleCountKey(query), hits.getTotal());
+            PageResult<Content> result = buildCursorPage(contents, pageSize, titleCountKey(query), hits::getTotal);
+            result.setTotalExact(true);
+            return result;
+        }
+        return buildCursorPage(contents, pageSize, titleCountKey(query), () -> searchEngine.count(query));
+    }
+
+    /**
+     * 按标题和过滤条件分页查询视频内容，并返回各维度的分面计数
+     * 由标题内存索引的位图求交集得到结果和精确总数，不论配置的是哪个搜索引擎，标题都按子串匹配；
+     * 索引尚未构建完成时回退到数据库按条件查询，此时不提供分面计数；
+     * 两条路径都使用归一化后的关键词，索引中的标题同样经过归一化，数据库的LIKE按不区分大小写的排序规则比较
+     * 
+     * @param title 标题关键词
+     * @param filter 过滤条件
+     * @param cursor 上一页返回的nextCursor，为null时按页码分页，为空字符串表示第一页
+     * @param currentPage 当前页码，游标分页时忽略
+     * @param pageSize 每页大小
+     * @return 带分面计数的分页结果
+     */
+    @Override
+    public FacetedPageResult<Content> getContentByTitleAndFilter(String title, SearchFilter filter, String cursor,
+                                                                 int currentPage, int pageSize) {
+        PageCursor pageCursor = parseCursor(cursor);
+        if (cursor != null ? pageCursor == null : currentPage == 1) {
+            searchTermCounter.record(title);
+        }
+        String cursorTime = pageCursor != null ? pageCursor.getKey() : null;
+        String cursorId = pageCursor != null ? pageCursor.getId() : null;
+        int offset = (currentPage - 1) * pageSize;
+        String query = QueryNormalizer.normalize(title);
         
-        // 查询当前页数据
-        List<Content> contents = contentMapper.getContentByTitleAndPage(title, offset, pageSize);
+        SearchHits hits = cursor != null
+                ? titleIndex.searchFilteredAfter(query, filter, cursorTime, cursorId, pageSize + 1)
+                : titleIndex.searchFiltered(query, filter, offset, pageSize + 1);
+        if (hits != null) {
+            List<Content> contents = hydrate(hits.getVideoIds());
+            PageResult<Content> page;
+            if (cursor != null) {
+                page = buildCursorPage(contents, pageSize, filterCountKey(query, filter), hits::getTotal);
+                page.setTotal(hits.getTotal());
+                page.setTotalExact(true);
+            } else {
+                page = buildOffsetPage(contents, currentPage, pageSize, filterCountKey(query, filter), hits::getTotal, true);
+            }
+            return new FacetedPageResult<>(page, hits.getFacets());
+        }
         
-        // 查询总记录数
-        long totalCount = contentMapper.getContentCountByTitle(title);
+        List<Content> contents = hydrate(contentMapper.searchIdsByTitleFiltered(query, filter, cursorTime, cursorId,
+                cursor != null ? 0 : offset, pageSize + 1));
+        LongSupplier counter = () -> contentMapper.getContentCountByTitleFiltered(query, filter);
+        PageResult<Content> page = cursor != null
+                ? buildCursorPage(contents, pageSize, filterCountKey(query, filter), counter)
+                : buildOffsetPage(contents, currentPage, pageSize, filterCountKey(query, filter), counter, false);
+        return new FacetedPageResult<>(page, null);
+    }
+
+    /**
+     * 搜索词补全
+     * 从内存中的前缀Top-K索引直接取出，耗时与关键词总数无关
+     * 
+     * @param prefix 用户已输入的内容
+     * @param limit 最多返回的条数
+     * @return 按搜索次数从多到少排列的关键词
+     */
+    @Override
+    public List<String> suggestKeywords(String prefix, int limit) {
+        return keywordSuggester.suggest(prefix, limit);
+    }
+
+    /**
+     * 近期热门搜索词
+     * 直接读取内存中的高频词统计，不访问数据库
+     * 
+     * @param limit 最多返回的个数
+     * @return 按近期搜索次数从多到少排列的搜索词
+     */
+    @Override
+    public List<KeywordCount> getTrendingKeywords(int limit) {
+        return searchTermCounter.trending(limit);
+    }
+
+    /**
+     * 带过滤条件的标题搜索的总数缓存键
+     *
+     * @param query 归一化后的关键词
+     */
+    private String filterCountKey(String query, SearchFilter filter) {
+        return "title-filter:" + query + ":" + filter;
+    }
+
+    /**
+     * 解析前端回传的游标，为空表示第一页
+     */
+    private PageCursor parseCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        return PageCursor.decode(cursor);
+    }
+
+    /**
+     * 标题搜索结果缓存的键：搜索引擎、分页位置和关键词在该引擎下的等价形式，关键词放在最后，其中的分隔符不会造成歧义
+     */
+    private String searchCacheKey(String position, String title) {
+        return searchEngine.name() + ":" + position + ":" + searchEngine.queryKey(title);
+    }
+
+    /**
+     * 标题搜索的总数缓存键，按传给搜索引擎的关键词在该引擎下的等价形式区分查询形态，
+     * 只有统计结果必定相同的关键词才共用同一个缓存的总数
+     */
+    private String titleCountKey(String title) {
+        return "title:" + searchEngine.name() + ":" + searchEngine.queryKey(title);
+    }
+
+    /**
+     * 由多查一条的结果构造页码分页结果
+     * 总数优先取自总数缓存（近似值），exactTotal为true时实时统计并回写缓存
+     */
+    private <T extends ContentCard> PageResult<T> buildOffsetPage(List<T> contents, int currentPage, int pageSize,
+                                                                  String countKey, LongSupplier counter, boolean exactTotal) {
+        boolean hasNextPage = contents.size() > pageSize;
+        List<T> items = hasNextPage ? contents.subList(0, pageSize) : contents;
         
-        // 计算总页数
+        long totalCount;
+        if (exactTotal) {
+            totalCount = counter.getAsLong();
+            countCache.put(countKey, totalCount);
+        } else {
+            totalCount = countCache.get(countKey, counter);
+        }
+        // 缓存的总数可能落后于实际数据，保证与当前页的结果不矛盾
+        long seen = (long) (currentPage - 1) * pageSize + items.size();
+        totalCount = Math.max(totalCount, hasNextPage ? seen + 1 : seen);
         int totalPages = (int) Math.ceil((double) totalCount / pageSize);
         
-        // 创建分页结果
-        PageResult<Content> result = new PageResult<>();
-        result.setItems(contents);
+        PageResult<T> result = new PageResult<>();
+        result.setItems(items);
         result.setTotal(totalCount);
+        result.setTotalExact(exactTotal);
         result.setPageSize(pageSize);
         result.setCurrentPage(currentPage);
         result.setTotalPages(totalPages);
-        result.setHasNextPage(currentPage < totalPages);
+        result.setHasNextPage(hasNextPage);
+        result.setNextCursor(hasNextPage ? nextCursorOf(items) : null);
+        return result;
+    }
+
+    /**
+     * 由多查一条的结果构造游标分页结果
+     * 游标模式下没有页码，总数取自总数缓存（近似值）
+     */
+    private <T extends ContentCard> PageResult<T> buildCursorPage(List<T> contents, int pageSize, String countKey, LongSupplier counter) {
+        boolean hasNextPage = contents.size() > pageSize;
+        List<T> items = hasNextPage ? contents.subList(0, pageSize) : contents;
         
+        PageResult<T> result = new PageResult<>();
+        result.setItems(items);
+        result.setTotal(countCache.get(countKey, counter));
+        result.setTotalExact(false);
+        result.setPageSize(pageSize);
+        result.setHasNextPage(hasNextPage);
+        result.setNextCursor(hasNextPage ? nextCursorOf(items) : null);
         return result;
     }
+
+    /**
+     * 以当前页最后一条记录生成下一页游标
+     */
+    private String nextCursorOf(List<? extends ContentCard> contents) {
+        if (contents == null || contents.isEmpty()) {
+            return null;
+        }
+        ContentCard last = contents.get(contents.size() - 1);
+        return new PageCursor(last.getCreate_time(), last.getVideo_id()).encode();
+    }
     
     @Override
     public Content_Result<Void> likeVideo(String videoId) {
         try {
-            int rowsAffected = contentMapper.updateLikedCount(videoId, 1);
-            if (rowsAffected > 0) {
-                return Content_Result.success("点赞成功");
-            } else {
+            if (getContentById(videoId) == null) {
                 return Content_Result.error("点赞失败");
             }
+            counterBuffer.addLiked(videoId, 1);
+            return Content_Result.success("点赞成功");
         } catch (Exception e) {
             e.printStackTrace();
             return Content_Result.error("点赞发生异常: " + e.getMessage());
@@ -160,12 +636,11 @@ public class ContentServiceImpl implements ContentService {
     @Override
     public Content_Result<Void> dislikeVideo(String videoId) {
         try {
-            int rowsAffected = contentMapper.updateDislikedCount(videoId, 1);
-            if (rowsAffected > 0) {
-                return Content_Result.success("不喜欢成功");
-            } else {
+            if (getContentById(videoId) == null) {
                 return Content_Result.error("不喜欢失败");
             }
+            counterBuffer.addDisliked(videoId, 1);
+            return Content_Result.success("不喜欢成功");
         } catch (Exception e) {
             e.printStackTrace();
             return Content_Result.error("不喜欢发生异常: " + e.getMessage());
@@ -175,12 +650,11 @@ public class ContentServiceImpl implements ContentService {
     @Override
     public Content_Result<Void> unlikeVideo(String videoId) {
         try {
-            int rowsAffected = contentMapper.updateLikedCount(videoId, -1);
-            if (rowsAffected > 0) {
-                return Content_Result.success("取消点赞成功");
-            } else {
+            if (getContentById(videoId) == null) {
                 return Content_Result.error("取消点赞失败");
             }
+            counterBuffer.addLiked(videoId, -1);
+            return Content_Result.success("取消点赞成功");
         } catch (Exception e) {
             e.printStackTrace();
             return Content_Result.error("取消点赞发生异常: " + e.getMessage());
@@ -190,12 +664,11 @@ public class ContentServiceImpl implements ContentService {
     @Override
     public Content_Result<Void> undislikeVideo(String videoId) {
         try {
-            int rowsAffected = contentMapper.updateDislikedCount(videoId, -1);
-            if (rowsAffected > 0) {
-                return Content_Result.success("取消不喜欢成功");
-            } else {
+            if (getContentById(videoId) == null) {
                 return Content_Result.error("取消不喜欢失败");
             }
+            counterBuffer.addDisliked(videoId, -1);
+            return Content_Result.success("取消不喜欢成功");
         } catch (Exception e) {
             e.printStackTrace();
             return Content_Result.error("取消不喜欢发生异常: " + e.getMessage());
@@ -204,13 +677,13 @@ public class ContentServiceImpl implements ContentService {
     
     @Override
     public String getVideoUrl(String videoId) {
-        Content content = contentMapper.getContentById(videoId);
+        Content content = contentCache.get(videoId, contentMapper::getContentById);
         return content != null ? content.getVideo_url() : null;
     }
     
     @Override
     public String getVideoCoverUrl(String videoId) {
-        Content content = contentMapper.getContentById(videoId);
+        Content content = contentCache.get(videoId, contentMapper::getContentById);
         return content != null ? content.getVideo_cover_url() : null;
     }
     
@@ -222,75 +695,216 @@ public class ContentServiceImpl implements ContentService {
         // 计算偏移量
         int offset = (actualPage - 1) * pageSize;
         
-        // 查询热门视频数据
-        List<Content> hotVideos = contentMapper.getHotVideos(offset, pageSize);
-        
-        // 查询总记录数用于判断是否有更多数据
-        long totalCount = contentMapper.getContentCount();
+        // 优先从内存排行榜返回
+        HotVideoResponse cached = hotLeaderboard.getPage(offset, pageSize, false);
+        if (cached != null) {
+            return withPendingCounts(cached);
+        }
         
-        // 计算当前页结束位置
-        int endIndex = actualPage * pageSize;
+        // 排行榜未加载或超出排行榜范围时查询数据库，多查一条用于判断是否有更多数据，无需统计总数
+        List<Content> hotVideos = withPendingCounts(contentMapper.getHotVideos(offset, pageSize + 1));
         
         // 判断是否还有更多数据
-        boolean hasMore = endIndex < totalCount;
+        boolean hasMore = hotVideos.size() > pageSize;
         
         // 返回热门视频响应对象
-        return new HotVideoResponse(hotVideos, hasMore);
+        return new HotVideoResponse(hasMore ? hotVideos.subList(0, pageSize) : hotVideos, hasMore);
+    }
+
+    @Override
+    public HotVideoResponse getHotVideoCards(int currentPage, int pageSize) {
+        int offset = (Math.max(1, currentPage) - 1) * pageSize;
+        HotVideoResponse cached = hotLeaderboard.getPage(offset, pageSize, true);
+        if (cached != null) {
+            return withPendingCounts(cached);
+        }
+        List<ContentCard> hotVideos = withPendingCounts(contentMapper.getHotVideoCards(offset, pageSize + 1));
+        boolean hasMore = hotVideos.size() > pageSize;
+        return new HotVideoResponse(hasMore ? hotVideos.subList(0, pageSize) : hotVideos, hasMore);
+    }
+
+    @Override
+    public HotVideoResponse getHotVideosByType(String videoType, int currentPage, int pageSize, String cursor, boolean card) {
+        if (categoryHotLists.isLoaded() && !categoryHotLists.hasCategory(videoType)) {
+            throw new IllegalArgumentException("未知的视频分类: " + videoType);
+        }
+        if (cursor != null && !cursor.isEmpty()) {
+            // 游标只能在内存列表中定位，分类列表尚未加载时拒绝，而不是悄悄返回第一页
+            if (!categoryHotLists.isLoaded()) {
+                throw new IllegalArgumentException("分类热门列表加载中，请不带cursor从第一页重新开始");
+            }
+            return withPendingCounts(categoryHotLists.getPageAfter(videoType, cursor, pageSize, card));
+        }
+        if (cursor != null) {
+            HotVideoResponse cached = categoryHotLists.getPageAfter(videoType, cursor, pageSize, card);
+            return cached != null ? withPendingCounts(cached) : getHotVideosByTypeFromDb(videoType, 0, pageSize, card);
+        }
+        int offset = (Math.max(1, currentPage) - 1) * pageSize;
+        HotVideoResponse cached = categoryHotLists.getPage(videoType, offset, pageSize, card);
+        return cached != null ? withPendingCounts(cached) : getHotVideosByTypeFromDb(videoType, offset, pageSize, card);
+    }
+
+    /**
+     * 分类热门列表未命中时直接查询数据库
+     */
+    private HotVideoResponse getHotVideosByTypeFromDb(String videoType, int offset, int pageSize, boolean card) {
+        List<Content> hotVideos = withPendingCounts(contentMapper.getHotVideoByVideoType(videoType, offset, pageSize + 1));
+        boolean hasMore = hotVideos.size() > pageSize;
+        List<Content> items = hasMore ? hotVideos.subList(0, pageSize) : hotVideos;
+        if (!card) {
+            return new HotVideoResponse(items, hasMore);
+        }
+        List<ContentCard> cards = new java.util.ArrayList<>(items.size());
+        for (Content item : items) {
+            ContentCard cardItem = new ContentCard();
+            BeanUtils.copyProperties(item, cardItem);
+            cards.add(cardItem);
+        }
+        return new HotVideoResponse(cards, hasMore);
     }
     @Override
     public List<Content> getRandomVideos(int count, List<String> excludeIds) {
-        // 简单的随机算法：在数据库层面随机 (适合数据量不大时)
-        // SELECT * FROM t_video ORDER BY RAND() LIMIT #{count}
-        // 注意：数据量极大时 ORDER BY RAND() 性能较差，建议用 Java 随机生成 ID 列表再去查
-        return contentMapper.selectRandomVideos(count, excludeIds);
+        // 在内存ID池中随机抽取ID，再按主键批量查询，开销只与count有关
+        List<String> sampledIds = randomVideoSampler.sample(count, excludeIds);
+        if (sampledIds == null) {
+            // ID池尚未加载时退回数据库随机（ORDER BY RAND()，数据量大时较慢）
+            return withPendingCounts(contentMapper.selectRandomVideos(count, excludeIds));
+        }
+        if (sampledIds.isEmpty()) {
+            return new java.util.ArrayList<>();
+        }
+        return withPendingCounts(orderByIds(contentMapper.getHotVideosByIds(sampledIds), sampledIds));
+    }
+
+    @Override
+    public List<ContentCard> getRandomVideoCards(int count, List<String> excludeIds) {
+        List<String> sampledIds = randomVideoSampler.sample(count, excludeIds);
+        if (sampledIds == null) {
+            return withPendingCounts(contentMapper.selectRandomVideoCards(count, excludeIds));
+        }
+        if (sampledIds.isEmpty()) {
+            return new java.util.ArrayList<>();
+        }
+        return withPendingCounts(orderByIds(contentMapper.getHotVideoCardsByIds(sampledIds), sampledIds));
+    }
+
+    /**
+     * 按令牌获取游客信息流的下一页
+     * 服务端不记录状态，也不需要前端回传已看过的ID
+     * 
+     * @param token 上一页返回的令牌，为空时开始新的信息流
+     * @param count 每页数量
+     * @param card 是否只返回卡片字段
+     * @return 本页视频、是否有更多和下一页令牌；ID池尚未加载时返回null
+     */
+    @Override
+    public VisitorFeedResponse getVisitorFeed(String token, int count, boolean card) {
+        RandomVideoSampler.FeedPage page = randomVideoSampler.nextFeedPage(token, count);
+        if (page == null) {
+            return null;
+        }
+        List<? extends ContentCard> videos;
+        if (page.ids().isEmpty()) {
+            videos = new java.util.ArrayList<>();
+        } else if (card) {
+            videos = withPendingCounts(orderByIds(contentMapper.getHotVideoCardsByIds(page.ids()), page.ids()));
+        } else {
+            videos = withPendingCounts(orderByIds(contentMapper.getHotVideosByIds(page.ids()), page.ids()));
+        }
+        return new VisitorFeedResponse(videos, page.hasMore(), page.nextToken());
+    }
+
+    /**
+     * 按ID批量获取视频
+     * 去掉空白和重复的ID后分批用IN查询，每批最多batch-chunk-size个，避免SQL过长
+     * 
+     * @param ids 视频ID列表
+     * @param card 是否只返回卡片字段
+     * @return 视频列表，顺序与ids一致，查不到的ID跳过
+     */
+    @Override
+    public List<? extends ContentCard> getContentsByIds(List<String> ids, boolean card) {
+        return card
+                ? fetchByIds(ids, contentMapper::getContentCardsByIds)
+                : fetchByIds(ids, contentMapper::getContentsByIds);
+    }
+
+    private <T extends ContentCard> List<T> fetchByIds(List<String> ids, Function<List<String>, List<T>> loader) {
+        List<String> distinct = new java.util.ArrayList<>();
+        if (ids != null) {
+            java.util.Set<String> seen = new java.util.HashSet<>();
+            for (String id : ids) {
+                if (id != null && !id.trim().isEmpty() && seen.add(id.trim())) {
+                    distinct.add(id.trim());
+                }
+            }
+        }
+        List<T> rows = new java.util.ArrayList<>(distinct.size());
+        for (int from = 0; from < distinct.size(); from += batchChunkSize) {
+            rows.addAll(loader.apply(distinct.subList(from, Math.min(from + batchChunkSize, distinct.size()))));
+        }
+        return withPendingCounts(orderByIds(rows, distinct));
+    }
+
+    /**
+     * 按给定的ID顺序重新排列批量查询的结果，查不到的ID跳过
+     */
+    private <T extends ContentCard> List<T> orderByIds(List<T> rows, List<String> ids) {
+        Map<String, T> byId = new HashMap<>(rows.size() * 2);
+        for (T row : rows) {
+            byId.put(row.getVideo_id(), row);
+        }
+        List<T> ordered = new java.util.ArrayList<>(ids.size());
+        for (String id : ids) {
+            T row = byId.get(id);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
     }
     
     @Override
     public long getTotalVideoCount(List<String> excludeIds) {
-        return contentMapper.getTotalVideoCount(excludeIds);
+        long remaining = randomVideoSampler.remaining(excludeIds);
+        return remaining >= 0 ? remaining : contentMapper.getTotalVideoCount(excludeIds);
     }
     
     @Override
     public List<Content> getRandomVideosWithoutExclude(int count) {
-        return contentMapper.selectRandomVideos(count, null);
+        return getRandomVideos(count, null);
     }
     
     @Override
-    public PageResult<Content> getFavoriteVideos(Long favoriteId, Integer rule, Integer page, Integer quantity) {
+    public PageResult<Content> getFavoriteVideos(Long favoriteId, Integer rule, Integer page, Integer quantity, boolean exactTotal) {
         int actualPage = Math.max(1, page);
         int actualQuantity = Math.max(1, quantity);
         int offset = (actualPage - 1) * actualQuantity;
         
-        List<Content> videos = contentMapper.getFavoriteVideos(favoriteId, rule, offset, actualQuantity);
-        long totalCount = contentMapper.countFavoriteVideos(favoriteId);
-        int totalPages = (int) Math.ceil((double) totalCount / actualQuantity);
-        
-        PageResult<Content> result = new PageResult<>();
-        result.setItems(videos);
-        result.setTotal(totalCount);
-        result.setPageSize(actualQuantity);
-        result.setCurrentPage(actualPage);
-        result.setTotalPages(totalPages);
-        result.setHasNextPage(actualPage < totalPages);
+        List<Content> videos = withPendingCounts(contentMapper.getFavoriteVideos(favoriteId, rule, offset, actualQuantity + 1));
         
+        PageResult<Content> result = buildOffsetPage(videos, actualPage, actualQuantity,
+                "favorite:" + favoriteId, () -> contentMapper.countFavoriteVideos(favoriteId), exactTotal);
+        // 收藏夹的排序规则不是按create_time，游标不适用
+        result.setNextCursor(null);
         return result;
     }
     
     @Override
     public List<Content> getVideosBySourceKeyword(String sourceKeyword, int size) {
-        return contentMapper.getVideosBySourceKeyword(sourceKeyword, size);
+        return withPendingCounts(contentMapper.getVideosBySourceKeyword(sourceKeyword, size));
     }
     
     @Override
     public List<Content> getRecommendedVideosByVideoId(String videoId, int size) {
         // 根据视频ID获取视频信息
-        Content video = contentMapper.getContentById(videoId);
+        Content video = contentCache.get(videoId, contentMapper::getContentById);
         if (video == null || video.getSource_keyword() == null) {
             return null;
         }
         
         // 根据source_keyword查询视频，限制返回数量
-        List<Content> videos = contentMapper.getVideosBySourceKeyword(video.getSource_keyword(), size + 1); // 多查一个，用于排除当前视频
+        List<Content> videos = withPendingCounts(contentMapper.getVideosBySourceKeyword(video.getSource_keyword(), size + 1)); // 多查一个，用于排除当前视频
         
         // 排除当前视频
         if (videos != null) {
@@ -336,20 +950,8 @@ public class ContentServiceImpl implements ContentService {
             String[] videoIds = videoList.split(",");
             System.out.println("分割后的videoIds数量: " + videoIds.length);
             
-            // 根据视频ID列表查询视频内容
-            List<Content> videos = new java.util.ArrayList<>();
-            for (String videoId : videoIds) {
-                if (videoId != null && !videoId.trim().isEmpty()) {
-                    String trimmedId = videoId.trim();
-                    System.out.println("查询视频ID: " + trimmedId);
-                    Content video = contentMapper.getContentById(trimmedId);
-                    System.out.println("查询结果: " + video);
-                    if (video != null) {
-                        videos.add(video);
-                        System.out.println("添加视频到结果列表: " + video.getVideo_id());
-                    }
-                }
-            }
+            // 根据视频ID列表批量查询视频内容，保持推荐顺序
+            List<Content> videos = fetchByIds(Arrays.asList(videoIds), contentMapper::getContentsByIds);
             
             System.out.println("最终返回视频数量: " + videos.size());
             System.out.println("=== 调试信息结束 ===");
@@ -0,0 +1,106 @@
+package com.tlias.paper0_1.service.impl;
+
+import com.tlias.paper0_1.entity.SearchHits;
+import com.tlias.paper0_1.mapper.ContentMapper;
+import com.tlias.paper0_1.service.SearchEngine;
+import com.tlias.paper0_1.tools.QueryNormalizer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * 基于MySQL全文索引（ngram分词）的搜索引擎
+ * 在title和description上以布尔模式 MATCH ... AGAINST 查询，页码分页按相关度降序排列，游标分页按create_time降序排列
+ * 需要先建立全文索引：
+ * ALTER TABLE videos ADD FULLTEXT INDEX ft_videos_title_description (title, description) WITH PARSER ngram;
+ *
+ * 每个空白分隔的关键词作为必须出现的短语（+"词"），ngram下相当于子串匹配；
+ * 关键词中的布尔运算符会被去掉。ngram分词器会忽略短于ngram_token_size的词，
+ * 因此存在这样的关键词（或没有可用的关键词）时交给LIKE引擎处理
+ */
+@Service
+public class FulltextSearchEngine implements SearchEngine {
+
+    /**
+     * 布尔模式下有特殊含义的字符
+     */
+    private static final String OPERATORS = "+-<>()~*\"@";
+
+    @Autowired
+    private ContentMapper contentMapper;
+
+    @Autowired
+    private LikeSearchEngine likeSearchEngine;
+
+    /**
+     * 与MySQL的ngram_token_size一致
+     */
+    @Value("${paper.search.fulltext.ngram-token-size:2}")
+    private int ngramTokenSize;
+
+    @Override
+    public String name() {
+        return "fulltext";
+    }
+
+    @Override
+    public SearchHits search(String title, int offset, int limit) {
+        String query = booleanQuery(title);
+        if (query == null) {
+            return likeSearchEngine.search(title, offset, limit);
+        }
+        return new SearchHits(contentMapper.searchIdsByFulltext(query, offset, limit), null);
+    }
+
+    @Override
+    public SearchHits searchAfter(String title, String cursorTime, String cursorId, int limit) {
+        String query = booleanQuery(title);
+        if (query == null) {
+            return likeSearchEngine.searchAfter(title, cursorTime, cursorId, limit);
+        }
+        return new SearchHits(contentMapper.searchIdsByFulltextAfter(query, cursorTime, cursorId, limit), null);
+    }
+
+    @Override
+    public long count(String title) {
+        String query = booleanQuery(title);
+        return query == null ? likeSearchEngine.count(title) : contentMapper.getContentCountByFulltext(query);
+    }
+
+    /**
+     * 能用全文索引处理时以布尔查询串为键，否则与LIKE引擎相同
+     */
+    @Override
+    public String queryKey(String title) {
+        String query = booleanQuery(title);
+        return query != null ? "match:" + query : "like:" + likeSearchEngine.queryKey(title);
+    }
+
+    /**
+     * 把搜索词转换为布尔模式的查询串
+     *
+     * @return 查询串，如 +"原神" +"教程"；无法用全文索引处理时返回null
+     */
+    String booleanQuery(String title) {
+        String normalized = QueryNormalizer.normalize(title);
+        StringBuilder cleaned = new StringBuilder(normalized.length());
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            cleaned.append(OPERATORS.indexOf(c) >= 0 ? ' ' : c);
+        }
+        StringBuilder query = new StringBuilder();
+        for (String term : cleaned.toString().trim().split("\\s+")) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            if (term.length() < ngramTokenSize) {
+                return null;
+            }
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            query.append("+\"").append(term).append('"');
+        }
+        return query.length() == 0 ? null : query.toString();
+    }
+}
@@ -0,0 +1,46 @@
+package com.tlias.paper0_1.service.impl;
+
+import com.tlias.paper0_1.entity.SearchHits;
+import com.tlias.paper0_1.mapper.ContentMapper;
+import com.tlias.paper0_1.service.SearchEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * 基于 title LIKE '%词%' 的搜索引擎
+ * 无法使用索引，每次搜索都扫描整张videos表；作为其他引擎无法处理时的兜底
+ */
+@Service
+public class LikeSearchEngine implements SearchEngine {
+
+    @Autowired
+    private ContentMapper contentMapper;
+
+    @Override
+    public String name() {
+        return "like";
+    }
+
+    @Override
+    public SearchHits search(String title, int offset, int limit) {
+        return new SearchHits(contentMapper.searchIdsByTitle(title, offset, limit), null);
+    }
+
+    @Override
+    public SearchHits searchAfter(String title, String cursorTime, String cursorId, int limit) {
+        return new SearchHits(contentMapper.searchIdsByTitleAfter(title, cursorTime, cursorId, limit), null);
+    }
+
+    @Override
+    public long count(String title) {
+        return contentMapper.getContentCountByTitle(title);
+    }
+
+    /**
+     * 大小写、全半角是否等价取决于数据库排序规则，这里只去掉首尾空白（LIKE前后本来就是%）
+     */
+    @Override
+    public String queryKey(String title) {
+        return title == null ? "" : title.trim();
+    }
+}
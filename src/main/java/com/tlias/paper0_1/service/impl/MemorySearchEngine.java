@@ -0,0 +1,53 @@
+package com.tlias.paper0_1.service.impl;
+
+import com.tlias.paper0_1.component.TitleIndex;
+import com.tlias.paper0_1.entity.SearchHits;
+import com.tlias.paper0_1.service.SearchEngine;
+import com.tlias.paper0_1.tools.QueryNormalizer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * 基于内存标题倒排索引的搜索引擎
+ * 搜索时顺带得到精确总数；索引首次构建完成前交给LIKE引擎处理
+ */
+@Service
+public class MemorySearchEngine implements SearchEngine {
+
+    @Autowired
+    private TitleIndex titleIndex;
+
+    @Autowired
+    private LikeSearchEngine likeSearchEngine;
+
+    @Override
+    public String name() {
+        return "memory";
+    }
+
+    @Override
+    public SearchHits search(String title, int offset, int limit) {
+        SearchHits hits = titleIndex.search(title, offset, limit);
+        return hits != null ? hits : likeSearchEngine.search(title, offset, limit);
+    }
+
+    @Override
+    public SearchHits searchAfter(String title, String cursorTime, String cursorId, int limit) {
+        SearchHits hits = titleIndex.searchAfter(title, cursorTime, cursorId, limit);
+        return hits != null ? hits : likeSearchEngine.searchAfter(title, cursorTime, cursorId, limit);
+    }
+
+    @Override
+    public long count(String title) {
+        SearchHits hits = titleIndex.search(title, 0, 0);
+        return hits != null ? hits.getTotal() : likeSearchEngine.count(title);
+    }
+
+    /**
+     * 内存索引按归一化后的搜索词匹配
+     */
+    @Override
+    public String queryKey(String title) {
+        return QueryNormalizer.normalize(title);
+    }
+}
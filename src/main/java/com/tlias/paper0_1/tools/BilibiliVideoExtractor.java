@@ -0,0 +1,247 @@
+package com.tlias.paper0_1.tools;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * B站视频详情流式解析工具
+ * 逐个读取JSON token，只保留data下的aid/bvid/title/desc/pic/owner/stat/pages，其余字段直接跳过，
+ * 不构建完整的节点树；精简后的JSON也用JsonGenerator直接写出，不再创建第二棵树
+ * 解析器和生成器来自共享的ObjectMapper，线程安全
+ */
+public class BilibiliVideoExtractor {
+
+    private static final JsonFactory FACTORY = new ObjectMapper().getFactory();
+
+    private BilibiliVideoExtractor() {
+    }
+
+    /**
+     * 一次遍历解析B站视频详情接口的响应
+     *
+     * @param body 响应体
+     * @return 提取出的字段
+     * @throws IOException 响应不是合法的JSON对象时抛出
+     */
+    public static VideoInfo parse(byte[] body) throws IOException {
+        VideoInfo info = new VideoInfo();
+        try (JsonParser p = FACTORY.createParser(body)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("B站响应不是JSON对象");
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.currentName();
+                JsonToken token = p.nextToken();
+                if ("code".equals(name)) {
+                    info.code = p.getValueAsInt(-1);
+                } else if ("data".equals(name) && token == JsonToken.START_OBJECT) {
+                    readData(p, info);
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+        return info;
+    }
+
+    /**
+     * 写出返回给前端的精简JSON
+     * 字段和顺序与原先基于节点树拼装的结果一致
+     */
+    public static String writeSimplified(VideoInfo v) throws IOException {
+        StringWriter out = new StringWriter(512);
+        try (JsonGenerator g = FACTORY.createGenerator(out)) {
+            g.writeStartObject();
+            g.writeNumberField("code", 200);
+            g.writeStringField("message", "解析成功");
+
+            g.writeObjectFieldStart("data");
+            g.writeStringField("bvid", v.bvid);
+            g.writeStringField("title", v.title);
+            g.writeStringField("desc", v.desc);
+            g.writeStringField("cover_url", v.pic);
+
+            g.writeObjectFieldStart("author");
+            g.writeStringField("uid", v.ownerMid);
+            g.writeStringField("nickname", v.ownerName);
+            g.writeStringField("avatar", v.ownerFace);
+            g.writeEndObject();
+
+            g.writeObjectFieldStart("stats");
+            g.writeNumberField("view_count", v.viewCount);
+            g.writeNumberField("danmaku_count", v.danmakuCount);
+            g.writeNumberField("like_count", v.likeCount);
+            g.writeNumberField("coin_count", v.coinCount);
+            g.writeNumberField("favorite_count", v.favoriteCount);
+            g.writeEndObject();
+
+            g.writeArrayFieldStart("parts_info");
+            for (Part part : v.parts) {
+                g.writeStartObject();
+                g.writeNumberField("cid", part.cid);
+                g.writeNumberField("page", part.page);
+                g.writeStringField("part_title", part.title);
+                g.writeNumberField("duration", part.duration);
+                g.writeEndObject();
+            }
+            g.writeEndArray();
+
+            g.writeEndObject();
+            g.writeEndObject();
+        }
+        return out.toString();
+    }
+
+    private static void readData(JsonParser p, VideoInfo info) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            JsonToken token = p.nextToken();
+            switch (name) {
+                case "aid" -> info.aid = p.getValueAsString("");
+                case "bvid" -> info.bvid = p.getValueAsString("");
+                case "title" -> info.title = p.getValueAsString("");
+                case "desc" -> info.desc = p.getValueAsString("");
+                case "pic" -> info.pic = p.getValueAsString("");
+                case "owner" -> {
+                    if (token == JsonToken.START_OBJECT) {
+                        readOwner(p, info);
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+                case "stat" -> {
+                    if (token == JsonToken.START_OBJECT) {
+                        readStat(p, info);
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+                case "pages" -> {
+                    if (token == JsonToken.START_ARRAY) {
+                        readPages(p, info);
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    private static void readOwner(JsonParser p, VideoInfo info) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            switch (name) {
+                case "mid" -> info.ownerMid = p.getValueAsString("");
+                case "name" -> info.ownerName = p.getValueAsString("");
+                case "face" -> info.ownerFace = p.getValueAsString("");
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    private static void readStat(JsonParser p, VideoInfo info) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            switch (name) {
+                case "view" -> info.viewCount = p.getValueAsLong();
+                case "danmaku" -> info.danmakuCount = p.getValueAsLong();
+                case "like" -> info.likeCount = p.getValueAsLong();
+                case "coin" -> info.coinCount = p.getValueAsLong();
+                case "favorite" -> info.favoriteCount = p.getValueAsLong();
+                case "share" -> info.shareCount = p.getValueAsLong();
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    private static void readPages(JsonParser p, VideoInfo info) throws IOException {
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            if (p.currentToken() != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            Part part = new Part();
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.currentName();
+                p.nextToken();
+                switch (name) {
+                    case "cid" -> part.cid = p.getValueAsLong();
+                    case "page" -> part.page = p.getValueAsInt();
+                    case "part" -> part.title = p.getValueAsString("");
+                    case "duration" -> part.duration = p.getValueAsLong();
+                    default -> p.skipChildren();
+                }
+            }
+            info.parts.add(part);
+        }
+    }
+
+    /**
+     * 从B站响应中提取出的视频信息
+     */
+    @Getter
+    public static final class VideoInfo {
+
+        /**
+         * B站接口返回码，0表示成功
+         */
+        private int code;
+
+        private String aid = "";
+
+        private String bvid = "";
+
+        private String title = "";
+
+        private String desc = "";
+
+        private String pic = "";
+
+        private String ownerMid = "";
+
+        private String ownerName = "";
+
+        private String ownerFace = "";
+
+        private long viewCount;
+
+        private long danmakuCount;
+
+        private long likeCount;
+
+        private long coinCount;
+
+        private long favoriteCount;
+
+        private long shareCount;
+
+        private final List<Part> parts = new ArrayList<>();
+    }
+
+    /**
+     * 分P信息
+     */
+    @Getter
+    public static final class Part {
+
+        private long cid;
+
+        private int page;
+
+        private String title = "";
+
+        private long duration;
+    }
+}
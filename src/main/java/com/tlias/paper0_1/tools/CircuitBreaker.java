@@ -0,0 +1,137 @@
+package com.tlias.paper0_1.tools;
+
+/**
+ * 熔断器
+ * 关闭状态下记录最近window次调用的结果，调用数不少于minCalls且失败率达到阈值时打开；
+ * 打开后openMs内直接拒绝调用，之后进入半开状态，最多放行halfOpenProbes次探测调用：
+ * 探测全部成功则关闭，任意一次失败则重新打开
+ * 线程安全
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final boolean[] outcomes;
+
+    private final int minCalls;
+
+    private final double failureRateThreshold;
+
+    private final long openMs;
+
+    private final int halfOpenProbes;
+
+    private State state = State.CLOSED;
+
+    private int next;
+
+    private int recorded;
+
+    private int failures;
+
+    private long openedAt;
+
+    private int probesIssued;
+
+    private int probesSucceeded;
+
+    /**
+     * @param window               统计失败率的调用次数
+     * @param minCalls             计算失败率所需的最少调用次数
+     * @param failureRateThreshold 打开熔断的失败率（0-1）
+     * @param openMs               打开后拒绝调用的时长（毫秒）
+     * @param halfOpenProbes       半开状态下放行的探测调用数
+     */
+    public CircuitBreaker(int window, int minCalls, double failureRateThreshold, long openMs, int halfOpenProbes) {
+        this.outcomes = new boolean[Math.max(1, window)];
+        this.minCalls = Math.max(1, Math.min(minCalls, outcomes.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMs = openMs;
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+    }
+
+    /**
+     * 申请发起一次调用
+     * 获得许可后必须调用onSuccess或onFailure报告结果
+     *
+     * @return 允许调用时返回true；熔断打开或半开探测名额已用完时返回false
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMs) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probesIssued = 0;
+            probesSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesIssued >= halfOpenProbes) {
+                return false;
+            }
+            probesIssued++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++probesSucceeded >= halfOpenProbes) {
+                close();
+            }
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minCalls && failures >= failureRateThreshold * recorded) {
+                open();
+            }
+        }
+    }
+
+    public synchronized State state() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMs) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    private void record(boolean failed) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        recorded = 0;
+        failures = 0;
+    }
+}
@@ -0,0 +1,97 @@
+package com.tlias.paper0_1.tools;
+
+import java.security.SecureRandom;
+
+/**
+ * 计数估算器（Count-Min Sketch，64位计数器）
+ * 4行计数器，每个键在每行映射到一个计数器，估算值取4个计数器中的最小值，只会高估不会低估
+ * 与FrequencySketch不同，计数器不设上限，用于估算搜索词等需要具体次数的场景；占用的内存只由宽度决定，与键的数量无关
+ * 每行直接对键的字符做64位哈希，种子在创建时随机生成、各行互相独立：
+ * 不经过String.hashCode，"Aa"和"BB"这类hashCode相同的键不会在每一行都冲突，外部也无法预先构造冲突的搜索词来抬高热度
+ * 非线程安全，由调用方加锁
+ */
+public class CountMinSketch {
+
+    private static final int DEPTH = 4;
+
+    private static final long MULTIPLIER = 0x9e3779b97f4a7c15L;
+
+    private final long[] seeds = new long[DEPTH];
+
+    private final long[][] rows;
+
+    private final int mask;
+
+    /**
+     * @param width 每行的计数器数量，向上取整为2的幂
+     */
+    public CountMinSketch(int width) {
+        int length = Integer.highestOneBit(Math.max(16, width) - 1) << 1;
+        this.rows = new long[DEPTH][length];
+        this.mask = length - 1;
+        SecureRandom random = new SecureRandom();
+        for (int i = 0; i < DEPTH; i++) {
+            seeds[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * 估算键的累计次数
+     */
+    public long estimate(String key) {
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < rows.length; i++) {
+            min = Math.min(min, rows[i][indexOf(key, i)]);
+        }
+        return min;
+    }
+
+    /**
+     * 累加次数
+     * 只把低于新估算值的计数器抬高到新估算值（保守更新），减少哈希冲突带来的高估
+     *
+     * @return 累加后的估算值
+     */
+    public long add(String key, long count) {
+        int[] indexes = new int[rows.length];
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < rows.length; i++) {
+            indexes[i] = indexOf(key, i);
+            min = Math.min(min, rows[i][indexes[i]]);
+        }
+        long updated = min + count;
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i][indexes[i]] < updated) {
+                rows[i][indexes[i]] = updated;
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * 所有计数器减半，使次数随时间衰减
+     */
+    public void halve() {
+        for (long[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>>= 1;
+            }
+        }
+    }
+
+    /**
+     * 键在第i行的位置：以该行的种子为初值逐个字符混合，最后再做一次64位的雪崩混合（MurmurHash3的fmix64）
+     */
+    private int indexOf(String key, int i) {
+        long h = seeds[i] ^ key.length();
+        for (int j = 0; j < key.length(); j++) {
+            h = Long.rotateLeft((h ^ key.charAt(j)) * MULTIPLIER, 31);
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+}
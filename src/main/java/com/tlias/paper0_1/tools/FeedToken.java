@@ -0,0 +1,70 @@
+package com.tlias.paper0_1.tools;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 游客信息流的续页令牌
+ * 记录排列的种子、已经读到的位置和开始时视频池的版本，编码成不透明的字符串返回给前端
+ * 排列长度取自服务端保存的对应版本的视频池，不由前端提供
+ */
+public class FeedToken {
+
+    private final long seed;
+
+    private final long position;
+
+    private final long generation;
+
+    public FeedToken(long seed, long position, long generation) {
+        this.seed = seed;
+        this.position = position;
+        this.generation = generation;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * 编码为URL安全的Base64字符串
+     *
+     * @return 续页令牌
+     */
+    public String encode() {
+        String raw = seed + ":" + position + ":" + generation;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析前端回传的续页令牌
+     *
+     * @param token 续页令牌
+     * @return 令牌对象
+     * @throws IllegalArgumentException 令牌格式不正确时抛出
+     */
+    public static FeedToken decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("无效的信息流令牌");
+            }
+            FeedToken feedToken = new FeedToken(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            if (feedToken.position < 0) {
+                throw new IllegalArgumentException("无效的信息流令牌");
+            }
+            return feedToken;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的信息流令牌", e);
+        }
+    }
+}
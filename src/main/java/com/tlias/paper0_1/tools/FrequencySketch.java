@@ -0,0 +1,97 @@
+package com.tlias.paper0_1.tools;
+
+/**
+ * 访问频率估算器（Count-Min Sketch，4位计数器）
+ * 每个long保存16个4位计数器，每个键映射到4个计数器，估算值取其中最小值
+ * 累计写入次数达到采样上限后所有计数器减半，使频率随时间衰减，旧的热点会逐渐让位
+ * 非线程安全，由调用方加锁
+ */
+public class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0x97cb3127c4a3d2b1L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+
+    private final int mask;
+
+    private final int sampleSize;
+
+    private int additions;
+
+    /**
+     * @param expectedEntries 预计同时跟踪的键数量，决定计数器表大小
+     */
+    public FrequencySketch(int expectedEntries) {
+        int length = Integer.highestOneBit(Math.max(16, expectedEntries) - 1) << 1;
+        this.table = new long[length];
+        this.mask = length - 1;
+        this.sampleSize = 10 * length;
+    }
+
+    /**
+     * 估算键的访问次数（0-15）
+     */
+    public int frequency(Object key) {
+        int hash = key.hashCode();
+        int min = 15;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long h = mix(hash, i);
+            min = Math.min(min, counterAt(h));
+        }
+        return min;
+    }
+
+    /**
+     * 记录一次访问
+     * 只增加当前值等于最小值的计数器（保守更新），减少哈希冲突带来的高估
+     */
+    public void increment(Object key) {
+        int hash = key.hashCode();
+        long[] hashes = new long[SEEDS.length];
+        int min = 15;
+        for (int i = 0; i < SEEDS.length; i++) {
+            hashes[i] = mix(hash, i);
+            min = Math.min(min, counterAt(hashes[i]));
+        }
+        if (min == 15) {
+            return;
+        }
+        for (long h : hashes) {
+            if (counterAt(h) == min) {
+                int index = (int) (h >>> 32) & mask;
+                table[index] += 1L << offsetOf(h);
+            }
+        }
+        if (++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * 所有计数器减半
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    private int counterAt(long h) {
+        int index = (int) (h >>> 32) & mask;
+        return (int) ((table[index] >>> offsetOf(h)) & 0xfL);
+    }
+
+    private static int offsetOf(long h) {
+        return ((int) h & 15) << 2;
+    }
+
+    private static long mix(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[(i + 1) & 3];
+        return h ^ (h >>> 29);
+    }
+}
@@ -0,0 +1,105 @@
+package com.tlias.paper0_1.tools;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 延迟直方图
+ * 以微秒为单位按对数分桶，每个2的幂区间再分为4个子桶，分位数误差不超过约19%；
+ * 只统计最近一到两个时间窗口内的记录（当前窗口加上一个窗口），使分位数能跟上延迟的变化
+ * 记录操作无锁，线程安全
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 4;
+
+    private static final int BUCKETS = 40 * SUB_BUCKETS;
+
+    private final long windowMs;
+
+    private volatile AtomicLongArray current = new AtomicLongArray(BUCKETS);
+
+    private volatile AtomicLongArray previous = new AtomicLongArray(BUCKETS);
+
+    private volatile long windowStart = System.currentTimeMillis();
+
+    /**
+     * @param windowMs 时间窗口长度（毫秒）
+     */
+    public LatencyHistogram(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时（纳秒）
+     */
+    public void record(long nanos) {
+        rotateIfDue();
+        current.incrementAndGet(bucketOf(Math.max(1, nanos / 1000)));
+    }
+
+    /**
+     * 估算分位数
+     *
+     * @param quantile 分位（0-1），如0.95
+     * @return 分位数对应的耗时（毫秒，取桶的上界）；没有记录时返回-1
+     */
+    public double percentileMs(double quantile) {
+        rotateIfDue();
+        AtomicLongArray cur = current;
+        AtomicLongArray prev = previous;
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = cur.get(i) + prev.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return -1;
+        }
+        long target = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(1, target)) {
+                return upperBoundMicros(i) / 1000.0;
+            }
+        }
+        return upperBoundMicros(BUCKETS - 1) / 1000.0;
+    }
+
+    private void rotateIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - windowStart < windowMs) {
+            return;
+        }
+        synchronized (this) {
+            if (now - windowStart < windowMs) {
+                return;
+            }
+            // 超过两个窗口没有记录时上一个窗口也已过期
+            previous = now - windowStart < 2 * windowMs ? current : new AtomicLongArray(BUCKETS);
+            current = new AtomicLongArray(BUCKETS);
+            windowStart = now;
+        }
+    }
+
+    private static int bucketOf(long micros) {
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = magnitude < 2
+                ? (int) (micros & (SUB_BUCKETS - 1))
+                : (int) ((micros >>> (magnitude - 2)) & (SUB_BUCKETS - 1));
+        return Math.min(BUCKETS - 1, magnitude * SUB_BUCKETS + sub);
+    }
+
+    private static long upperBoundMicros(int bucket) {
+        int magnitude = bucket / SUB_BUCKETS;
+        int sub = bucket % SUB_BUCKETS;
+        if (magnitude < 2) {
+            return (1L << magnitude) + sub;
+        }
+        long step = 1L << (magnitude - 2);
+        return (1L << magnitude) + (sub + 1) * step;
+    }
+}
@@ -0,0 +1,67 @@
+package com.tlias.paper0_1.tools;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 游标分页的续页令牌
+ * 由排序键和视频ID两部分组成，编码成不透明的字符串返回给前端
+ * 前端只需原样回传，不应解析其内容
+ */
+public class PageCursor {
+
+    private static final char SEPARATOR = '\n';
+
+    /**
+     * 排序键 - 如create_time，必须与查询的排序字段一致
+     */
+    private final String key;
+
+    /**
+     * 视频ID - 排序键相同时用于打破平局，保证顺序稳定
+     */
+    private final String id;
+
+    public PageCursor(String key, String id) {
+        this.key = key;
+        this.id = id;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * 编码为URL安全的Base64字符串
+     *
+     * @return 续页令牌
+     */
+    public String encode() {
+        String raw = key + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析前端回传的续页令牌
+     *
+     * @param token 续页令牌
+     * @return 游标对象
+     * @throws IllegalArgumentException 令牌格式不正确时抛出
+     */
+    public static PageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int split = raw.indexOf(SEPARATOR);
+            if (split <= 0 || split == raw.length() - 1) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+            return new PageCursor(raw.substring(0, split), raw.substring(split + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+}
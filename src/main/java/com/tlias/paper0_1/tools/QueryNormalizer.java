@@ -0,0 +1,43 @@
+package com.tlias.paper0_1.tools;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * 搜索词归一化工具
+ * 去除首尾空白、全角转半角（NFKC）、统一小写并合并连续空白，
+ * 使“ＡＢＣ ”、“abc”这类写法落到同一个缓存键上
+ */
+public class QueryNormalizer {
+
+    private QueryNormalizer() {
+    }
+
+    /**
+     * 归一化搜索词
+     *
+     * @param query 原始搜索词
+     * @return 归一化后的搜索词，传入null时返回空字符串
+     */
+    public static String normalize(String query) {
+        if (query == null) {
+            return "";
+        }
+        String folded = Normalizer.normalize(query, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).trim();
+        StringBuilder sb = new StringBuilder(folded.length());
+        boolean lastSpace = false;
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (!lastSpace) {
+                    sb.append(' ');
+                }
+                lastSpace = true;
+            } else {
+                sb.append(c);
+                lastSpace = false;
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package com.tlias.paper0_1.tools;
+
+/**
+ * 基于种子的伪随机排列
+ * 用4轮Feistel网络在[0, 2^2h)上构造双射，再通过循环行走（cycle walking）收缩到[0, n)，
+ * 相同的种子和n总是得到同一个排列，因此只需记住种子和位置就能继续遍历，不会重复也不会遗漏
+ */
+public class SeededPermutation {
+
+    private static final int ROUNDS = 4;
+
+    private final long seed;
+
+    private final long size;
+
+    private final int halfBits;
+
+    private final long halfMask;
+
+    /**
+     * @param seed 种子
+     * @param size 排列长度n，必须大于0
+     */
+    public SeededPermutation(long seed, long size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        this.seed = seed;
+        this.size = size;
+        int bits = Math.max(2, 64 - Long.numberOfLeadingZeros(size - 1));
+        this.halfBits = (bits + 1) / 2;
+        this.halfMask = (1L << halfBits) - 1;
+    }
+
+    /**
+     * 获取排列中第index个位置对应的元素
+     *
+     * @param index 位置，范围[0, n)
+     * @return 元素，范围[0, n)
+     */
+    public long get(long index) {
+        long value = index;
+        do {
+            value = encrypt(value);
+        } while (value >= size);
+        return value;
+    }
+
+    private long encrypt(long value) {
+        long left = value >>> halfBits;
+        long right = value & halfMask;
+        for (int round = 0; round < ROUNDS; round++) {
+            long next = left ^ (mix(right ^ seed ^ ((long) round << 56)) & halfMask);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    /**
+     * SplitMix64的混合函数
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
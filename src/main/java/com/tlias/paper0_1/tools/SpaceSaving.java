@@ -0,0 +1,165 @@
+package com.tlias.paper0_1.tools;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 高频项统计（Space-Saving算法）
+ * 最多同时跟踪capacity个键，已满时新出现的键替换当前次数最少的键，并继承它的次数作为误差上界，
+ * 因此次数超过 总次数/capacity 的键一定在列表中；每个键的次数是高估值，count - error 是确定的下界
+ * 按次数组织成小顶堆，替换和更新都是O(log capacity)，占用的内存只由capacity决定
+ * 非线程安全，由调用方加锁
+ */
+public class SpaceSaving {
+
+    private final int capacity;
+
+    private final Map<String, Integer> positions;
+
+    private final String[] keys;
+
+    private final long[] counts;
+
+    private final long[] errors;
+
+    private int size;
+
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.positions = new HashMap<>(capacity * 4 / 3 + 1);
+        this.keys = new String[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+    }
+
+    /**
+     * 累加键的次数
+     *
+     * @param key        键
+     * @param count      增加的次数
+     * @param upperBound 已知的次数上界（如Count-Min Sketch的估算值），没有时传Long.MAX_VALUE；
+     *                   替换最少的键时新键的次数不超过该上界，上界不大于最少次数时不替换
+     * @return 键当前的次数，未被跟踪时返回-1
+     */
+    public long offer(String key, long count, long upperBound) {
+        Integer position = positions.get(key);
+        if (position != null) {
+            counts[position] += count;
+            siftDown(position);
+            return counts[positions.get(key)];
+        }
+        if (size < capacity) {
+            int slot = size++;
+            keys[slot] = key;
+            counts[slot] = count;
+            errors[slot] = 0;
+            positions.put(key, slot);
+            siftUp(slot);
+            return count;
+        }
+        long replaced = Math.min(counts[0] + count, upperBound);
+        if (replaced <= counts[0]) {
+            return -1;
+        }
+        positions.remove(keys[0]);
+        keys[0] = key;
+        errors[0] = replaced - count;
+        counts[0] = replaced;
+        positions.put(key, 0);
+        siftDown(0);
+        return replaced;
+    }
+
+    /**
+     * 次数最多的若干个键
+     *
+     * @param limit 最多返回的个数
+     * @return 按次数从多到少排列
+     */
+    public List<Counter> top(int limit) {
+        List<Counter> all = counters();
+        all.sort((a, b) -> Long.compare(b.count(), a.count()));
+        return all.size() > limit ? new ArrayList<>(all.subList(0, limit)) : all;
+    }
+
+    /**
+     * 当前跟踪的全部键，不保证顺序
+     */
+    public List<Counter> counters() {
+        List<Counter> all = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            all.add(new Counter(keys[i], counts[i], errors[i]));
+        }
+        return all;
+    }
+
+    /**
+     * 所有次数和误差减半，使次数随时间衰减；减半不改变大小关系，堆结构保持不变
+     */
+    public void halve() {
+        for (int i = 0; i < size; i++) {
+            counts[i] >>>= 1;
+            errors[i] >>>= 1;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (counts[parent] <= counts[i]) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && counts[left] < counts[smallest]) {
+                smallest = left;
+            }
+            if (right < size && counts[right] < counts[smallest]) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        String key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        long count = counts[a];
+        counts[a] = counts[b];
+        counts[b] = count;
+        long error = errors[a];
+        errors[a] = errors[b];
+        errors[b] = error;
+        positions.put(keys[a], a);
+        positions.put(keys[b], b);
+    }
+
+    /**
+     * 键的统计结果
+     *
+     * @param key   键
+     * @param count 次数（高估值）
+     * @param error 最大高估量
+     */
+    public record Counter(String key, long count, long error) {
+    }
+}
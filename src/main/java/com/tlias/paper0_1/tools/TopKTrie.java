@@ -0,0 +1,217 @@
+package com.tlias.paper0_1.tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 带前缀Top-K的只读字典树，用于搜索词补全
+ * 构建时为每个节点预先算好该前缀下次数最多的k个词，查询只需沿前缀走到对应节点再取出列表，
+ * 耗时只与前缀长度有关，与词的总数无关
+ * 节点、子节点和Top-K列表都存放在扁平的数组中；只有一个子节点且本身不是完整词的节点
+ * 与子节点的Top-K完全相同，直接共用同一段列表，不重复存储
+ * 构建完成后不再修改，可以被多个线程同时读取
+ */
+public class TopKTrie {
+
+    private final int k;
+
+    /**
+     * 按键排序后的词，keys用于匹配，displays是返回给调用方的原始写法
+     */
+    private final String[] keys;
+
+    private final String[] displays;
+
+    private final long[] counts;
+
+    private int[] childStart = new int[16];
+
+    private char[] childCount = new char[16];
+
+    private int[] topStart = new int[16];
+
+    private byte[] topCount = new byte[16];
+
+    private int nodeCount;
+
+    private char[] childChars = new char[16];
+
+    private int[] childNodes = new int[16];
+
+    private int childSize;
+
+    private int[] topEntries = new int[16];
+
+    private int topSize;
+
+    private TopKTrie(String[] keys, String[] displays, long[] counts, int k) {
+        this.keys = keys;
+        this.displays = displays;
+        this.counts = counts;
+        this.k = k;
+    }
+
+    /**
+     * 构建字典树
+     *
+     * @param keys     归一化后的词，不能重复
+     * @param displays 每个词返回给调用方的写法，与keys一一对应
+     * @param counts   每个词的次数
+     * @param k        每个前缀保留的候选数，最大127
+     * @return 字典树
+     */
+    public static TopKTrie build(String[] keys, String[] displays, long[] counts, int k) {
+        if (k < 1 || k > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("k必须在1到127之间");
+        }
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> keys[a].compareTo(keys[b]));
+        String[] sortedKeys = new String[keys.length];
+        String[] sortedDisplays = new String[keys.length];
+        long[] sortedCounts = new long[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedKeys[i] = keys[order[i]];
+            sortedDisplays[i] = displays[order[i]];
+            sortedCounts[i] = counts[order[i]];
+        }
+        TopKTrie trie = new TopKTrie(sortedKeys, sortedDisplays, sortedCounts, k);
+        trie.buildNode(0, sortedKeys.length, 0);
+        return trie;
+    }
+
+    /**
+     * 查询以prefix开头、次数最多的词
+     *
+     * @param prefix 归一化后的前缀，空字符串表示全部词
+     * @param limit  最多返回的条数，超过k时按k处理
+     * @return 按次数从多到少排列的词
+     */
+    public List<String> suggest(String prefix, int limit) {
+        if (nodeCount == 0 || limit <= 0) {
+            return Collections.emptyList();
+        }
+        int node = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            int start = childStart[node];
+            int slot = Arrays.binarySearch(childChars, start, start + childCount[node], prefix.charAt(i));
+            if (slot < 0) {
+                return Collections.emptyList();
+            }
+            node = childNodes[slot];
+        }
+        int n = Math.min(limit, topCount[node]);
+        List<String> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            result.add(displays[topEntries[topStart[node] + i]]);
+        }
+        return result;
+    }
+
+    /**
+     * 词的数量
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * 节点数量
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * 为[lo, hi)范围内、前depth个字符相同的词构建节点
+     * 子节点在返回前已全部构建完成，因此本节点的子节点列表可以连续写入
+     */
+    private int buildNode(int lo, int hi, int depth) {
+        int node = nodeCount++;
+        ensureNodeCapacity(nodeCount);
+        // 排序后与前缀完全相同的词一定排在最前面
+        int terminal = -1;
+        int from = lo;
+        if (from < hi && keys[from].length() == depth) {
+            terminal = from++;
+        }
+        List<int[]> groups = new ArrayList<>();
+        while (from < hi) {
+            char c = keys[from].charAt(depth);
+            int to = from + 1;
+            while (to < hi && keys[to].charAt(depth) == c) {
+                to++;
+            }
+            groups.add(new int[]{c, buildNode(from, to, depth + 1)});
+            from = to;
+        }
+        ensureChildCapacity(childSize + groups.size());
+        childStart[node] = childSize;
+        childCount[node] = (char) groups.size();
+        for (int[] group : groups) {
+            childChars[childSize] = (char) group[0];
+            childNodes[childSize] = group[1];
+            childSize++;
+        }
+        if (terminal < 0 && groups.size() == 1) {
+            int child = groups.get(0)[1];
+            topStart[node] = topStart[child];
+            topCount[node] = topCount[child];
+        } else {
+            mergeTop(node, terminal, groups);
+        }
+        return node;
+    }
+
+    /**
+     * 合并本节点的完整词和各子节点的Top-K，取次数最多的k个
+     */
+    private void mergeTop(int node, int terminal, List<int[]> groups) {
+        List<Integer> candidates = new ArrayList<>();
+        if (terminal >= 0) {
+            candidates.add(terminal);
+        }
+        for (int[] group : groups) {
+            int child = group[1];
+            for (int i = 0; i < topCount[child]; i++) {
+                candidates.add(topEntries[topStart[child] + i]);
+            }
+        }
+        candidates.sort((a, b) -> counts[a] != counts[b] ? Long.compare(counts[b], counts[a]) : keys[a].compareTo(keys[b]));
+        int n = Math.min(k, candidates.size());
+        ensureTopCapacity(topSize + n);
+        topStart[node] = topSize;
+        topCount[node] = (byte) n;
+        for (int i = 0; i < n; i++) {
+            topEntries[topSize++] = candidates.get(i);
+        }
+    }
+
+    private void ensureNodeCapacity(int capacity) {
+        if (capacity > childStart.length) {
+            int grown = Math.max(capacity, childStart.length * 2);
+            childStart = Arrays.copyOf(childStart, grown);
+            childCount = Arrays.copyOf(childCount, grown);
+            topStart = Arrays.copyOf(topStart, grown);
+            topCount = Arrays.copyOf(topCount, grown);
+        }
+    }
+
+    private void ensureChildCapacity(int capacity) {
+        if (capacity > childChars.length) {
+            int grown = Math.max(capacity, childChars.length * 2);
+            childChars = Arrays.copyOf(childChars, grown);
+            childNodes = Arrays.copyOf(childNodes, grown);
+        }
+    }
+
+    private void ensureTopCapacity(int capacity) {
+        if (capacity > topEntries.length) {
+            topEntries = Arrays.copyOf(topEntries, Math.max(capacity, topEntries.length * 2));
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.tlias.paper0_1.component;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.tlias.paper0_1.mapper.ContentMapper;
+import com.tlias.paper0_1.service.impl.BilibiliServiceImpl;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 热门视频统计刷新的测试
+ * 用本地HttpServer模拟B站视频详情接口，按真实流程经过BilibiliServiceImpl和StatsBuffer，
+ * 只把排行榜、详情缓存、标题索引和数据库会话换成mock
+ */
+class HotStatsRefresherTest {
+
+    private HttpServer upstream;
+
+    /**
+     * aid -> 模拟接口收到请求的时间（纳秒）
+     */
+    private final Map<String, Long> arrivals = new ConcurrentHashMap<>();
+
+    /**
+     * 模拟接口返回500的aid
+     */
+    private final Set<String> failing = ConcurrentHashMap.newKeySet();
+
+    private HotLeaderboard hotLeaderboard;
+
+    private ContentMapper statsMapper;
+
+    private StatsBuffer statsBuffer;
+
+    private HotStatsRefresher refresher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        upstream = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        upstream.createContext("/x/web-interface/view", this::handleView);
+        upstream.start();
+
+        hotLeaderboard = mock(HotLeaderboard.class);
+
+        statsMapper = mock(ContentMapper.class);
+        SqlSession session = mock(SqlSession.class);
+        when(session.getMapper(ContentMapper.class)).thenReturn(statsMapper);
+        when(session.flushStatements()).thenAnswer(invocation -> {
+            BatchResult result = new BatchResult(null, "updateVideoStats");
+            int[] counts = new int[64];
+            Arrays.fill(counts, 1);
+            result.setUpdateCounts(counts);
+            return List.of(result);
+        });
+        SqlSessionFactory sqlSessionFactory = mock(SqlSessionFactory.class);
+        when(sqlSessionFactory.openSession(ExecutorType.BATCH, false)).thenReturn(session);
+
+        statsBuffer = new StatsBuffer();
+        ReflectionTestUtils.setField(statsBuffer, "sqlSessionFactory", sqlSessionFactory);
+        ReflectionTestUtils.setField(statsBuffer, "contentCache", mock(ContentCache.class));
+        ReflectionTestUtils.setField(statsBuffer, "hotLeaderboard", hotLeaderboard);
+        ReflectionTestUtils.setField(statsBuffer, "titleIndex", mock(TitleIndex.class));
+        ReflectionTestUtils.setField(statsBuffer, "maxEntries", 1000);
+
+        BilibiliServiceImpl bilibiliService = new BilibiliServiceImpl();
+        ReflectionTestUtils.setField(bilibiliService, "statsBuffer", statsBuffer);
+        ReflectionTestUtils.setField(bilibiliService, "contentMapper", mock(ContentMapper.class));
+        ReflectionTestUtils.setField(bilibiliService, "contentCache", mock(ContentCache.class));
+        ReflectionTestUtils.setField(bilibiliService, "baseUrl", "http://127.0.0.1:" + upstream.getAddress().getPort());
+        ReflectionTestUtils.setField(bilibiliService, "connectTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(bilibiliService, "readTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(bilibiliService, "maxInFlight", 64);
+        ReflectionTestUtils.setField(bilibiliService, "refreshAfterMs", 30000L);
+        ReflectionTestUtils.setField(bilibiliService, "ttlMs", 300000L);
+        ReflectionTestUtils.setField(bilibiliService, "maxEntries", 1000);
+        ReflectionTestUtils.setField(bilibiliService, "breakerWindow", 20);
+        ReflectionTestUtils.setField(bilibiliService, "breakerMinCalls", 10);
+        ReflectionTestUtils.setField(bilibiliService, "breakerFailureRate", 0.5);
+        ReflectionTestUtils.setField(bilibiliService, "breakerOpenMs", 10000L);
+        ReflectionTestUtils.setField(bilibiliService, "breakerHalfOpenProbes", 2);
+        ReflectionTestUtils.setField(bilibiliService, "metricsWindowMs", 60000L);
+        bilibiliService.init();
+
+        refresher = new HotStatsRefresher();
+        ReflectionTestUtils.setField(refresher, "hotLeaderboard", hotLeaderboard);
+        ReflectionTestUtils.setField(refresher, "bilibiliService", bilibiliService);
+        ReflectionTestUtils.setField(refresher, "enabled", true);
+        ReflectionTestUtils.setField(refresher, "backoffMaxMs", 60000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        refresher.shutdown();
+        statsBuffer.shutdown();
+        upstream.stop(0);
+    }
+
+    /**
+     * 请求按rate-per-second均匀发出，批与批之间不会突发
+     */
+    @Test
+    void paceRequestsAtConfiguredRate() throws InterruptedException {
+        List<String> ids = ids(1, 10);
+        when(hotLeaderboard.topVideoIds(anyInt())).thenReturn(ids);
+        configure(ids.size(), 3, 20, 1000);
+
+        refresher.refreshRound();
+
+        assertEquals(ids.size(), arrivals.size());
+        List<Long> times = new ArrayList<>(arrivals.values());
+        times.sort(null);
+        long spanMs = (times.get(times.size() - 1) - times.get(0)) / 1_000_000;
+        // 20次每秒，10个请求之间有9个50ms的间隔；第一个请求还要建立连接，到达时间会稍晚
+        assertTrue(spanMs >= 350, "10 requests at 20/s finished within " + spanMs + "ms");
+    }
+
+    /**
+     * 一批中部分视频失败时，其余视频的统计数据照常写回，退避之后继续刷新下一批
+     */
+    @Test
+    void backOffAfterPartialFailureAndContinue() throws InterruptedException {
+        List<String> ids = ids(1, 6);
+        failing.add("2");
+        when(hotLeaderboard.topVideoIds(anyInt())).thenReturn(ids);
+        configure(ids.size(), 3, 1000, 400);
+
+        refresher.refreshRound();
+
+        assertEquals(ids.size(), arrivals.size());
+        long firstBatchEnd = Math.max(arrivals.get("1"), Math.max(arrivals.get("2"), arrivals.get("3")));
+        long secondBatchStart = Math.min(arrivals.get("4"), Math.min(arrivals.get("5"), arrivals.get("6")));
+        long pauseMs = (secondBatchStart - firstBatchEnd) / 1_000_000;
+        // 第一次退避为base乘以[0.5, 1.5)的随机系数
+        assertTrue(pauseMs >= 200, "second batch started " + pauseMs + "ms after the failed batch");
+
+        statsBuffer.flush();
+        for (String id : ids) {
+            long n = Long.parseLong(id);
+            if (failing.contains(id)) {
+                verify(statsMapper, never()).updateVideoStats(eq(id), anyLong(), anyLong(), anyLong(), anyLong(), anyLong());
+                verify(hotLeaderboard, never()).onStatsUpdated(eq(id), anyLong(), anyLong());
+            } else {
+                verify(statsMapper).updateVideoStats(id, n * 100, n * 10, n, n * 2, n * 1000);
+                verify(hotLeaderboard).onStatsUpdated(id, n * 100, n * 1000);
+            }
+        }
+    }
+
+    /**
+     * 没有出错的批次之间不退避
+     */
+    @Test
+    void noBackoffWhenAllSucceed() throws InterruptedException {
+        List<String> ids = ids(1, 6);
+        when(hotLeaderboard.topVideoIds(anyInt())).thenReturn(ids);
+        configure(ids.size(), 3, 1000, 5000);
+
+        long start = System.nanoTime();
+        refresher.refreshRound();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(ids.size(), arrivals.size());
+        assertTrue(elapsedMs < 2500, "round took " + elapsedMs + "ms without any failure");
+        statsBuffer.flush();
+        verify(statsMapper).updateVideoStats(eq("6"), anyLong(), anyLong(), anyLong(), anyLong(), anyLong());
+    }
+
+    private void configure(int topN, int batchSize, double ratePerSecond, long backoffBaseMs) {
+        ReflectionTestUtils.setField(refresher, "topN", topN);
+        ReflectionTestUtils.setField(refresher, "batchSize", batchSize);
+        ReflectionTestUtils.setField(refresher, "ratePerSecond", ratePerSecond);
+        ReflectionTestUtils.setField(refresher, "backoffBaseMs", backoffBaseMs);
+    }
+
+    private static List<String> ids(int from, int to) {
+        List<String> ids = new ArrayList<>();
+        for (int i = from; i <= to; i++) {
+            ids.add(String.valueOf(i));
+        }
+        return ids;
+    }
+
+    /**
+     * 模拟B站视频详情接口：统计数据由aid推算，failing中的aid返回500
+     */
+    private void handleView(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        String aid = query.startsWith("aid=") ? query.substring(4) : "";
+        arrivals.put(aid, System.nanoTime());
+        byte[] body;
+        int status;
+        if (failing.contains(aid)) {
+            status = 500;
+            body = "upstream error".getBytes(StandardCharsets.UTF_8);
+        } else {
+            long n = Long.parseLong(aid);
+            status = 200;
+            body = ("{\"code\":0,\"message\":\"0\",\"data\":{\"aid\":" + n + ",\"bvid\":\"\",\"title\":\"video " + n + "\","
+                    + "\"stat\":{\"view\":" + n * 1000 + ",\"like\":" + n * 100 + ",\"coin\":" + n * 2
+                    + ",\"favorite\":" + n * 10 + ",\"share\":" + n + "}}}").getBytes(StandardCharsets.UTF_8);
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.tlias.paper0_1.component;
+
+import com.tlias.paper0_1.entity.Content;
+import com.tlias.paper0_1.entity.SearchFilter;
+import com.tlias.paper0_1.entity.SearchHits;
+import com.tlias.paper0_1.mapper.ContentMapper;
+import com.tlias.paper0_1.tools.QueryNormalizer;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 标题内存索引的测试
+ * 索引是默认的搜索引擎（paper.search.engine=memory），代替 title LIKE '%词%'；
+ * 用20万条合成标题构建索引，逐个查询与暴力子串匹配的结果对比，包括页码分页、游标分页和过滤条件
+ */
+class TitleIndexTest {
+
+    private static final int ROWS = 200_000;
+
+    private static final String[] WORDS = {
+            "原神", "教程", "攻略", "实况", "Game", "GAME", "ｇａｍｅ", "Minecraft", "mc", "音乐", "翻唱", "vlog",
+            "日常", "AB", "ab", "a", "100%", "my_world", "猫", "狗", "  ", "原", "神"
+    };
+
+    private static final String[] QUERIES = {
+            "原神", "原神教程", "教程", "game", "GAME", "ｇａｍｅ", "Game 教程", "minecraft", "ab", "a", "原", "猫狗",
+            "100%", "my_world", "%", "_", " 教程 ", "不存在的词", "vlog日常", "神教"
+    };
+
+    private static List<Content> rows;
+
+    private static TitleIndex index;
+
+    @BeforeAll
+    static void build() {
+        Random random = new Random(20240501L);
+        rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            StringBuilder title = new StringBuilder();
+            int words = 1 + random.nextInt(5);
+            for (int w = 0; w < words; w++) {
+                title.append(WORDS[random.nextInt(WORDS.length)]);
+                if (random.nextInt(3) == 0) {
+                    title.append(' ');
+                }
+            }
+            Content row = new Content();
+            row.setVideo_id(String.format("v%07d", random.nextInt(ROWS * 5)));
+            row.setTitle(title.toString());
+            // 时间只精确到小时，大量视频的create_time相同，用来检查video_id的次级排序
+            row.setCreate_time(String.format("2024-%02d-%02d %02d:00:00",
+                    1 + random.nextInt(12), 1 + random.nextInt(28), random.nextInt(24)));
+            row.setVideo_type(random.nextBoolean() ? "game" : "music");
+            row.setStatus("published");
+            row.setLiked_count(random.nextInt(20_000));
+            rows.add(row);
+        }
+        // 重复的video_id在索引中按最后一次出现为准，暴力匹配也只保留最后一条
+        Map<String, Content> unique = new LinkedHashMap<>();
+        for (Content row : rows) {
+            unique.put(row.getVideo_id(), row);
+        }
+        rows = new ArrayList<>(unique.values());
+
+        @SuppressWarnings("unchecked")
+        Cursor<Content> cursor = mock(Cursor.class);
+        when(cursor.iterator()).thenAnswer(invocation -> rows.iterator());
+        ContentMapper streamingMapper = mock(ContentMapper.class);
+        when(streamingMapper.streamTitleIndexRows()).thenReturn(cursor);
+        SqlSession session = mock(SqlSession.class);
+        when(session.getMapper(ContentMapper.class)).thenReturn(streamingMapper);
+        SqlSessionFactory sqlSessionFactory = mock(SqlSessionFactory.class);
+        when(sqlSessionFactory.openSession()).thenReturn(session);
+
+        index = new TitleIndex();
+        ReflectionTestUtils.setField(index, "sqlSessionFactory", sqlSessionFactory);
+        ReflectionTestUtils.setField(index, "contentMapper", mock(ContentMapper.class));
+        ReflectionTestUtils.setField(index, "searchResultCache", mock(SearchResultCache.class));
+        ReflectionTestUtils.setField(index, "counterBuffer", new CounterBuffer());
+        ReflectionTestUtils.setField(index, "searchEngine", "memory");
+        ReflectionTestUtils.setField(index, "maxFacetValues", 20);
+        index.rebuild();
+        assertTrue(index.isReady());
+    }
+
+    /**
+     * 全量结果和总数与暴力子串匹配一致
+     */
+    @Test
+    void matchesBruteForceSubstring() {
+        for (String query : QUERIES) {
+            List<String> expected = bruteForce(query, row -> true);
+            SearchHits hits = index.search(query, 0, Integer.MAX_VALUE);
+            assertEquals(expected, hits.getVideoIds(), "query: " + query);
+            assertEquals(expected.size(), hits.getTotal(), "total of query: " + query);
+        }
+    }
+
+    /**
+     * 页码分页取出的每一页都是全量结果中对应的一段
+     */
+    @Test
+    void offsetPagesMatchBruteForce() {
+        for (String query : QUERIES) {
+            List<String> expected = bruteForce(query, row -> true);
+            for (int offset : new int[]{0, 20, 1000, Math.max(0, expected.size() - 5)}) {
+                SearchHits hits = index.search(query, offset, 20);
+                List<String> page = expected.subList(Math.min(offset, expected.size()), Math.min(offset + 20, expected.size()));
+                assertEquals(page, hits.getVideoIds(), "query: " + query + ", offset: " + offset);
+                assertEquals(expected.size(), hits.getTotal());
+            }
+        }
+    }
+
+    /**
+     * 用每页最后一条作为游标连续翻三页，与全量结果的前60条一致
+     */
+    @Test
+    void cursorWalkMatchesBruteForce() {
+        for (String query : QUERIES) {
+            List<String> expected = bruteForce(query, row -> true);
+            List<String> walked = new ArrayList<>();
+            String cursorTime = null;
+            String cursorId = null;
+            for (int page = 0; page < 3; page++) {
+                SearchHits hits = index.searchAfter(query, cursorTime, cursorId, 20);
+                walked.addAll(hits.getVideoIds());
+                if (hits.getVideoIds().isEmpty()) {
+                    break;
+                }
+                String last = hits.getVideoIds().get(hits.getVideoIds().size() - 1);
+                cursorId = last;
+                cursorTime = timeOf(last);
+            }
+            assertEquals(expected.subList(0, Math.min(60, expected.size())), walked, "query: " + query);
+        }
+    }
+
+    /**
+     * 过滤条件（类型、创建时间区间、最少点赞数）与逐条判断的结果一致
+     */
+    @Test
+    void filteredSearchMatchesBruteForce() {
+        SearchFilter filter = new SearchFilter();
+        filter.setVideoTypes(List.of("game"));
+        filter.setCreatedFrom("2024-03-15");
+        filter.setCreatedTo("2024-09");
+        filter.setMinLikes(1500L);
+        Predicate<Content> condition = row -> "game".equals(row.getVideo_type())
+                && row.getCreate_time().compareTo("2024-03-15") >= 0 && row.getCreate_time().compareTo("2024-09") < 0
+                && row.getLiked_count() >= 1500;
+        for (String query : QUERIES) {
+            List<String> expected = bruteForce(query, condition);
+            SearchHits hits = index.searchFiltered(query, filter, 0, Integer.MAX_VALUE);
+            assertEquals(expected, hits.getVideoIds(), "query: " + query);
+            assertEquals(expected.size(), hits.getTotal());
+        }
+    }
+
+    /**
+     * 暴力匹配：归一化后的标题包含归一化后的查询词，按create_time降序、video_id降序排列
+     */
+    private static List<String> bruteForce(String query, Predicate<Content> condition) {
+        String normalized = QueryNormalizer.normalize(query);
+        return rows.stream()
+                .filter(row -> QueryNormalizer.normalize(row.getTitle()).contains(normalized))
+                .filter(condition)
+                .sorted(Comparator.comparing(Content::getCreate_time).thenComparing(Content::getVideo_id).reversed())
+                .map(Content::getVideo_id)
+                .toList();
+    }
+
+    private static String timeOf(String videoId) {
+        for (Content row : rows) {
+            if (row.getVideo_id().equals(videoId)) {
+                return row.getCreate_time();
+            }
+        }
+        throw new IllegalStateException(videoId);
+    }
+}
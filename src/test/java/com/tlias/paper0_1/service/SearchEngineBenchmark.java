@@ -0,0 +1,160 @@
+package com.tlias.paper0_1.service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 标题搜索的LIKE与FULLTEXT(ngram)耗时对比
+ * 在独立的videos_search_bench表中生成100万条视频（不影响videos表），分别用
+ * title LIKE '%词%' 与 MATCH(title, description) AGAINST(... IN BOOLEAN MODE) 查询第一页和总数，输出中位耗时
+ * 直接运行main方法即可，不参与单元测试；需要本地MySQL 8，参数依次为JDBC地址、用户名、密码（可省略）
+ */
+public class SearchEngineBenchmark {
+
+    private static final int ROWS = 1_000_000;
+
+    private static final int RUNS = 5;
+
+    private static final String[] WORDS = {
+            "原神", "教程", "Minecraft", "生存", "我的世界", "攻略", "PVP", "搞笑", "猫咪", "日常",
+            "Vlog", "美食", "做饭", "测评", "手机", "iPhone", "华为", "游戏", "音乐", "翻唱",
+            "鬼畜", "舞蹈", "科技", "数码", "旅行", "学习", "编程", "Java", "考研", "健身"
+    };
+
+    private static final String[][] QUERIES = {
+            {"原神教程", "+\"原神教程\""},
+            {"编程", "+\"编程\""},
+            {"iphone", "+\"iphone\""},
+            {"猫咪 日常", "+\"猫咪\" +\"日常\""},
+            {"不存在的词", "+\"不存在的词\""},
+    };
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0]
+                : "jdbc:mysql://localhost:3306/recommendation?rewriteBatchedStatements=true";
+        String user = args.length > 1 ? args[1] : "root";
+        String password = args.length > 2 ? args[2] : "root";
+        try (Connection conn = DriverManager.getConnection(url, user, password)) {
+            prepare(conn);
+            System.out.printf("%-14s %12s %12s %12s %12s %10s%n",
+                    "query", "like page", "like count", "ft page", "ft count", "hits");
+            for (String[] q : QUERIES) {
+                String likePage = "select video_id from videos_search_bench where title like concat('%', ?, '%')"
+                        + " order by create_time desc, video_id desc limit 0, 10";
+                String likeCount = "select count(*) from videos_search_bench where title like concat('%', ?, '%')";
+                String ftPage = "select video_id from videos_search_bench"
+                        + " where match(title, description) against (? in boolean mode)"
+                        + " order by match(title, description) against (? in boolean mode) desc, create_time desc, video_id desc"
+                        + " limit 0, 10";
+                String ftCount = "select count(*) from videos_search_bench"
+                        + " where match(title, description) against (? in boolean mode)";
+                double lp = median(conn, likePage, q[0], 1);
+                double lc = median(conn, likeCount, q[0], 1);
+                double fp = median(conn, ftPage, q[1], 2);
+                double fc = median(conn, ftCount, q[1], 1);
+                System.out.printf("%-14s %10.1fms %10.1fms %10.1fms %10.1fms %10d%n",
+                        q[0], lp, lc, fp, fc, count(conn, ftCount, q[1]));
+            }
+        }
+    }
+
+    /**
+     * 建表并生成数据，已有足够数据时跳过
+     */
+    private static void prepare(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("create table if not exists videos_search_bench ("
+                    + " video_id varchar(32) primary key,"
+                    + " title varchar(255),"
+                    + " description text,"
+                    + " create_time datetime,"
+                    + " key idx_bench_create_time_id (create_time, video_id)"
+                    + ") engine=InnoDB default charset=utf8mb4");
+            try (ResultSet rs = st.executeQuery("select count(*) from videos_search_bench")) {
+                rs.next();
+                if (rs.getLong(1) >= ROWS) {
+                    return;
+                }
+            }
+            st.execute("truncate table videos_search_bench");
+        }
+        Random random = new Random(42);
+        long base = Timestamp.valueOf("2020-01-01 00:00:00").getTime();
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(
+                "insert into videos_search_bench (video_id, title, description, create_time) values (?, ?, ?, ?)")) {
+            for (int i = 0; i < ROWS; i++) {
+                ps.setString(1, String.format("%08d", i));
+                ps.setString(2, words(random, 2 + random.nextInt(4)));
+                ps.setString(3, words(random, 8 + random.nextInt(12)));
+                ps.setTimestamp(4, new Timestamp(base + random.nextInt(4 * 365 * 24 * 3600) * 1000L));
+                ps.addBatch();
+                if (i % 5000 == 4999) {
+                    ps.executeBatch();
+                    conn.commit();
+                }
+            }
+            ps.executeBatch();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+        try (Statement st = conn.createStatement()) {
+            st.execute("alter table videos_search_bench"
+                    + " add fulltext index ft_bench_title_description (title, description) with parser ngram");
+        }
+    }
+
+    private static String words(Random random, int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+            if (random.nextInt(3) == 0) {
+                sb.append(' ');
+            }
+        }
+        return sb.toString().trim();
+    }
+
+    /**
+     * 预热一次后执行RUNS次，返回中位耗时（毫秒）
+     */
+    private static double median(Connection conn, String sql, String param, int params) throws SQLException {
+        double[] times = new double[RUNS];
+        for (int run = -1; run < RUNS; run++) {
+            long start = System.nanoTime();
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (int i = 1; i <= params; i++) {
+                    ps.setString(i, param);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        rs.getString(1);
+                    }
+                }
+            }
+            if (run >= 0) {
+                times[run] = (System.nanoTime() - start) / 1e6;
+            }
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+
+    private static long count(Connection conn, String sql, String param) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, param);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.tlias.paper0_1.tools;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * B站响应解析的分配量对比
+ * 对比原先的做法（每次新建ObjectMapper、readTree整棵树、再用createObjectNode拼第二棵树）
+ * 与BilibiliVideoExtractor流式解析，每次请求在当前线程上分配的字节数和耗时
+ * 直接运行main方法即可，不参与单元测试
+ */
+public class BilibiliVideoExtractorBenchmark {
+
+    private static final int WARMUP = 20_000;
+
+    private static final int ITERATIONS = 50_000;
+
+    public static void main(String[] args) throws Exception {
+        byte[] body = samplePayload().getBytes(StandardCharsets.UTF_8);
+        System.out.println("payload bytes: " + body.length);
+
+        String legacy = legacy(body);
+        String streaming = streaming(body);
+        if (!legacy.equals(streaming)) {
+            throw new IllegalStateException("两种解析方式的输出不一致:\n" + legacy + "\n" + streaming);
+        }
+
+        measure("readTree + createObjectNode", () -> legacy(body));
+        measure("streaming extractor", () -> streaming(body));
+    }
+
+    /**
+     * 原先的解析方式
+     */
+    private static String legacy(byte[] body) throws Exception {
+        String rawJsonStr = new String(body, StandardCharsets.UTF_8);
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode rootNode = mapper.readTree(rawJsonStr);
+        JsonNode dataNode = rootNode.path("data");
+
+        ObjectNode resultNode = mapper.createObjectNode();
+        resultNode.put("code", 200);
+        resultNode.put("message", "解析成功");
+
+        ObjectNode simplifiedData = mapper.createObjectNode();
+        simplifiedData.put("bvid", dataNode.path("bvid").asText());
+        simplifiedData.put("title", dataNode.path("title").asText());
+        simplifiedData.put("desc", dataNode.path("desc").asText());
+        simplifiedData.put("cover_url", dataNode.path("pic").asText());
+
+        ObjectNode authorNode = mapper.createObjectNode();
+        authorNode.put("uid", dataNode.path("owner").path("mid").asText());
+        authorNode.put("nickname", dataNode.path("owner").path("name").asText());
+        authorNode.put("avatar", dataNode.path("owner").path("face").asText());
+        simplifiedData.set("author", authorNode);
+
+        ObjectNode statsNode = mapper.createObjectNode();
+        statsNode.put("view_count", dataNode.path("stat").path("view").asLong());
+        statsNode.put("danmaku_count", dataNode.path("stat").path("danmaku").asLong());
+        statsNode.put("like_count", dataNode.path("stat").path("like").asLong());
+        statsNode.put("coin_count", dataNode.path("stat").path("coin").asLong());
+        statsNode.put("favorite_count", dataNode.path("stat").path("favorite").asLong());
+        simplifiedData.set("stats", statsNode);
+
+        ArrayNode partsArray = mapper.createArrayNode();
+        JsonNode originalPages = dataNode.path("pages");
+        if (originalPages.isArray()) {
+            for (JsonNode pageNode : originalPages) {
+                ObjectNode partInfo = mapper.createObjectNode();
+                partInfo.put("cid", pageNode.path("cid").asLong());
+                partInfo.put("page", pageNode.path("page").asInt());
+                partInfo.put("part_title", pageNode.path("part").asText());
+                partInfo.put("duration", pageNode.path("duration").asLong());
+                partsArray.add(partInfo);
+            }
+        }
+        simplifiedData.set("parts_info", partsArray);
+        resultNode.set("data", simplifiedData);
+        return resultNode.toString();
+    }
+
+    private static String streaming(byte[] body) throws Exception {
+        return BilibiliVideoExtractor.writeSimplified(BilibiliVideoExtractor.parse(body));
+    }
+
+    private static void measure(String name, Task task) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += task.run().length();
+        }
+        long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += task.run().length();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+        System.out.printf("%-28s %10d bytes/op %8.1f us/op (%d)%n",
+                name, allocated / ITERATIONS, elapsed / 1000.0 / ITERATIONS, sink);
+    }
+
+    /**
+     * 构造一个字段规模接近真实B站视频详情接口的响应
+     */
+    private static String samplePayload() {
+        StringBuilder sb = new StringBuilder(32 * 1024);
+        sb.append("{\"code\":0,\"message\":\"0\",\"ttl\":1,\"data\":{");
+        sb.append("\"bvid\":\"BV17x411w7KC\",\"aid\":170001,\"videos\":3,\"tid\":17,\"tname\":\"单机游戏\",\"copyright\":1,");
+        sb.append("\"pic\":\"http://i0.hdslb.com/bfs/archive/cover.jpg\",\"title\":\"【示例】测试视频标题\",\"pubdate\":1700000000,\"ctime\":1700000000,");
+        sb.append("\"desc\":\"").append("这是一段比较长的视频简介，包含\\\"转义字符\\\"和换行\\n。".repeat(20)).append("\",");
+        sb.append("\"desc_v2\":[{\"raw_text\":\"简介\",\"type\":1,\"biz_id\":0}],\"state\":0,\"duration\":2400,");
+        sb.append("\"rights\":{");
+        for (int i = 0; i < 20; i++) {
+            sb.append(i == 0 ? "" : ",").append("\"right_").append(i).append("\":").append(i % 2);
+        }
+        sb.append("},\"owner\":{\"mid\":122541,\"name\":\"示例UP主\",\"face\":\"http://i0.hdslb.com/bfs/face/face.jpg\"},");
+        sb.append("\"stat\":{\"aid\":170001,\"view\":35742131,\"danmaku\":918272,\"reply\":71622,\"favorite\":812345,")
+                .append("\"coin\":612345,\"share\":123456,\"now_rank\":0,\"his_rank\":12,\"like\":1612345,\"dislike\":0},");
+        sb.append("\"dynamic\":\"\",\"cid\":279786,\"dimension\":{\"width\":1920,\"height\":1080,\"rotate\":0},");
+        sb.append("\"pages\":[");
+        for (int i = 1; i <= 3; i++) {
+            sb.append(i == 1 ? "" : ",").append("{\"cid\":").append(279785 + i).append(",\"page\":").append(i)
+                    .append(",\"from\":\"vupload\",\"part\":\"第").append(i).append("P\",\"duration\":").append(800 * i)
+                    .append(",\"vid\":\"\",\"weblink\":\"\",\"dimension\":{\"width\":1920,\"height\":1080,\"rotate\":0}}");
+        }
+        sb.append("],\"subtitle\":{\"allow_submit\":false,\"list\":[]},");
+        sb.append("\"staff\":[");
+        for (int i = 0; i < 8; i++) {
+            sb.append(i == 0 ? "" : ",").append("{\"mid\":").append(1000 + i).append(",\"title\":\"参与\",\"name\":\"成员")
+                    .append(i).append("\",\"face\":\"http://i0.hdslb.com/bfs/face/").append(i)
+                    .append(".jpg\",\"vip\":{\"type\":1,\"status\":1,\"due_date\":0,\"label\":{\"path\":\"\",\"text\":\"大会员\"}},")
+                    .append("\"official\":{\"role\":0,\"title\":\"\",\"desc\":\"\",\"type\":-1},\"follower\":").append(10000 * i).append("}");
+        }
+        sb.append("],\"ugc_season\":{\"id\":1,\"title\":\"合集\",\"sections\":[{\"id\":1,\"episodes\":[");
+        for (int i = 0; i < 60; i++) {
+            sb.append(i == 0 ? "" : ",").append("{\"aid\":").append(170001 + i).append(",\"cid\":").append(300000 + i)
+                    .append(",\"title\":\"合集第").append(i).append("集\",\"attribute\":0,\"arc\":{\"aid\":").append(170001 + i)
+                    .append(",\"pic\":\"http://i0.hdslb.com/bfs/archive/").append(i).append(".jpg\",\"stat\":{\"view\":")
+                    .append(1000 * i).append(",\"danmaku\":").append(i).append(",\"like\":").append(10 * i).append("}}}");
+        }
+        sb.append("]}]},\"honor_reply\":{\"honor\":[{\"aid\":170001,\"type\":4,\"desc\":\"第1期每周必看\"}]},\"is_story\":false}}");
+        return sb.toString();
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        String run() throws Exception;
+    }
+}